@@ -0,0 +1,37 @@
+package org.saltations.mre.common.application;
+
+import java.time.OffsetDateTime;
+
+import io.micronaut.core.annotation.Introspected;
+import io.micronaut.core.annotation.Nullable;
+import org.saltations.mre.common.domain.HasChangeDates;
+import org.saltations.mre.common.domain.Versioned;
+
+/**
+ * Version and last updated date of an <em>entity</em>, enough to tell whether a client's copy is current without
+ * loading the entity.
+ *
+ * @param version version of the entity. Null if the entity is not versioned.
+ * @param updated date the entity was last updated. Null if the entity has no change dates.
+ */
+
+@Introspected
+public record ChangeStamp(@Nullable Long version, @Nullable OffsetDateTime updated)
+{
+    /**
+     * Change stamp of the entity
+     *
+     * @param entity entity. Not null.
+     *
+     * @return the change stamp. Null if the entity is neither versioned nor has change dates.
+     */
+
+    @Nullable
+    public static ChangeStamp of(Object entity)
+    {
+        var version = entity instanceof Versioned versioned ? versioned.getVersion() : null;
+        var updated = entity instanceof HasChangeDates dated ? dated.getUpdated() : null;
+
+        return version == null && updated == null ? null : new ChangeStamp(version, updated);
+    }
+}
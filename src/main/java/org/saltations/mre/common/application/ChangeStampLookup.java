@@ -0,0 +1,25 @@
+package org.saltations.mre.common.application;
+
+import java.util.Optional;
+
+import io.micronaut.core.annotation.NonNull;
+
+/**
+ * Implemented by repositories of versioned or dated entities, to read the {@link ChangeStamp} of an entity without
+ * loading the rest of it.
+ *
+ * @param <ID> Type of the <em>entity</em> identifier.
+ */
+
+public interface ChangeStampLookup<ID>
+{
+    /**
+     * Find the version and last updated date of the entity.
+     *
+     * @param id entity identifier. Non-null.
+     *
+     * @return Change stamp. Empty if there is no entity with the identifier.
+     */
+
+    Optional<ChangeStamp> findChangeStampById(@NonNull ID id);
+}
@@ -0,0 +1,305 @@
+package org.saltations.mre.common.application;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import io.micronaut.core.annotation.NonNull;
+import org.saltations.endeavour.FailureDescription;
+import org.saltations.endeavour.Outcome;
+import org.saltations.endeavour.Outcomes;
+import org.saltations.mre.common.domain.Entity;
+
+/**
+ * Group commit for concurrent creates of <em>entities</em>.
+ * <p>
+ * Creates that arrive within a short window, or until the group is full, are inserted together in one transaction
+ * with one batched (multi-row) insert. Each caller gets the outcome for its own prototype, with its own generated
+ * identifier. If the group insert fails every create in the group is retried on its own, so that one bad prototype
+ * only fails its own caller.
+ * <p>
+ * Windows are timed by a single scheduler thread and groups, whether closed by their window or by filling up, are
+ * committed on a pool of committing threads, so that one slow commit does not hold up the groups behind it.
+ * <p>
+ * {@link #submit(Object)} never blocks and is the one to use from a bounded executor, such as the write lane of a
+ * bulkhead, or from an event loop. {@link #create(Object)} parks its caller until the group commits, so a group only
+ * ever gets as many creates as there are threads calling it at once. Use it only from threads that are cheap to park,
+ * such as virtual threads or an unbounded IO executor, and never from a pool that is smaller than the groups it is
+ * meant to form.
+ *
+ * @param <C> Class of the <em>core object</em>
+ * @param <E> Class of the <em>entity</em>.
+ */
+
+public class CreateGroupCommitter<C, E extends Entity<?>>
+{
+    /**
+     * Creates a group of entities in a single transaction
+     *
+     * @param <C> Class of the <em>core object</em>
+     * @param <E> Class of the <em>entity</em>.
+     */
+
+    @FunctionalInterface
+    public interface GroupCreate<C, E>
+    {
+        /**
+         * @return the created entities in the same order as the prototypes
+         */
+
+        List<E> createAll(List<C> prototypes) throws Exception;
+    }
+
+    private record Waiting<C, E>(C prototype, CompletableFuture<Outcome<FailureDescription, E>> outcome)
+    {
+    }
+
+    private final GroupCreate<C, E> groupCreate;
+
+    private final Function<C, Outcome<FailureDescription, E>> singleCreate;
+
+    private final long windowNanos;
+
+    private final int maxGroupSize;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final ExecutorService committers;
+
+    private final Object lock = new Object();
+
+    /**
+     * Creates waiting for the window to close. Guarded by lock.
+     */
+
+    private List<Waiting<C, E>> waiting = new ArrayList<>();
+
+    private final LongAdder creates = new LongAdder();
+
+    private final LongAdder groups = new LongAdder();
+
+    private final LongAdder fallbacks = new LongAdder();
+
+    /**
+     * Primary constructor
+     *
+     * @param entityName   Name of the entity, used to name the threads
+     * @param groupCreate  Creates a group of entities in a single transaction
+     * @param singleCreate Creates a single entity in its own transaction, used when a group fails
+     * @param window       How long the first create of a group waits for others to join it
+     * @param maxGroupSize Largest number of creates in a group. A full group is committed straight away.
+     * @param threads      Number of threads committing the groups of closed windows, and so of commits (and
+     *                     connections) at once
+     */
+
+    public CreateGroupCommitter(@NonNull String entityName, @NonNull GroupCreate<C, E> groupCreate,
+                                @NonNull Function<C, Outcome<FailureDescription, E>> singleCreate,
+                                @NonNull Duration window, int maxGroupSize, int threads)
+    {
+        if (maxGroupSize < 1)
+        {
+            throw new IllegalArgumentException("Group size must be at least 1");
+        }
+
+        if (threads < 1)
+        {
+            throw new IllegalArgumentException("Group commit needs at least one committing thread");
+        }
+
+        this.groupCreate = groupCreate;
+        this.singleCreate = singleCreate;
+        this.windowNanos = window.toNanos();
+        this.maxGroupSize = maxGroupSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name(entityName + "-group-commit").daemon(true).factory());
+        this.committers = Executors.newFixedThreadPool(threads, Thread.ofPlatform().name(entityName + "-group-commit-", 0).daemon(true).factory());
+    }
+
+    /**
+     * Creates the entity from the prototype as part of a group, blocking until the group is committed. See the class
+     * doc for the threads this may be called from.
+     *
+     * @param prototype prototype of the entity. Valid and not null.
+     *
+     * @return outcome of creating this entity
+     */
+
+    public Outcome<FailureDescription, E> create(@NonNull C prototype)
+    {
+        try
+        {
+            return submit(prototype).join();
+        }
+        catch (CompletionException e)
+        {
+            if (e.getCause() instanceof RuntimeException cause)
+            {
+                throw cause;
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Submits the entity to be created from the prototype as part of a group, without waiting for it.
+     *
+     * @param prototype prototype of the entity. Valid and not null.
+     *
+     * @return completes with the outcome of creating this entity once its group is committed
+     */
+
+    public CompletableFuture<Outcome<FailureDescription, E>> submit(@NonNull C prototype)
+    {
+        var outcome = new CompletableFuture<Outcome<FailureDescription, E>>();
+        List<Waiting<C, E>> fullGroup = null;
+
+        creates.increment();
+
+        synchronized (lock)
+        {
+            waiting.add(new Waiting<>(prototype, outcome));
+
+            if (waiting.size() >= maxGroupSize)
+            {
+                fullGroup = takeWaiting();
+            }
+            else if (waiting.size() == 1)
+            {
+                scheduler.schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        // A full group is committed straight away rather than waiting for the scheduler, but not on the submitting thread
+
+        if (fullGroup != null)
+        {
+            dispatch(fullGroup);
+        }
+
+        return outcome;
+    }
+
+    /**
+     * Closes the window, handing its group to a committing thread
+     */
+
+    private void flush()
+    {
+        List<Waiting<C, E>> group;
+
+        synchronized (lock)
+        {
+            group = takeWaiting();
+        }
+
+        dispatch(group);
+    }
+
+    /**
+     * Hands the group to a committing thread
+     */
+
+    private void dispatch(List<Waiting<C, E>> group)
+    {
+        if (group.isEmpty())
+        {
+            return;
+        }
+
+        try
+        {
+            committers.execute(() -> commit(group));
+        }
+        catch (RejectedExecutionException e)
+        {
+            commit(group);
+        }
+    }
+
+    /**
+     * Takes the waiting creates. Must be called holding the lock.
+     */
+
+    private List<Waiting<C, E>> takeWaiting()
+    {
+        var group = waiting;
+
+        waiting = new ArrayList<>();
+
+        return group;
+    }
+
+    private void commit(List<Waiting<C, E>> group)
+    {
+        if (group.isEmpty())
+        {
+            return;
+        }
+
+        groups.increment();
+
+        try
+        {
+            var created = groupCreate.createAll(group.stream().map(Waiting::prototype).toList());
+
+            for (int i = 0; i < group.size(); i++)
+            {
+                group.get(i).outcome().complete(Outcomes.succeed(created.get(i)));
+            }
+        }
+        catch (Exception e)
+        {
+            // Nothing of the group was committed, so each create can be retried on its own
+
+            fallbacks.add(group.size());
+
+            for (var create : group)
+            {
+                try
+                {
+                    create.outcome().complete(singleCreate.apply(create.prototype()));
+                }
+                catch (RuntimeException single)
+                {
+                    create.outcome().completeExceptionally(single);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return number of creates submitted
+     */
+
+    public long getCreates()
+    {
+        return creates.sum();
+    }
+
+    /**
+     * @return number of groups committed (or attempted)
+     */
+
+    public long getGroups()
+    {
+        return groups.sum();
+    }
+
+    /**
+     * @return number of creates retried on their own after their group failed
+     */
+
+    public long getFallbacks()
+    {
+        return fallbacks.sum();
+    }
+}
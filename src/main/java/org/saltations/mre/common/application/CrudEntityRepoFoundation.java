@@ -1,18 +1,30 @@
 package org.saltations.mre.common.application;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import io.micronaut.core.annotation.NonNull;
+import io.micronaut.data.model.Pageable;
+import io.micronaut.data.repository.jpa.JpaSpecificationExecutor;
 import org.saltations.mre.common.domain.Entity;
 
 /**
  * Foundation (provides some default functionality) repository for entities of type E.
+ * <p>
+ * Supports criteria based updates ({@link JpaSpecificationExecutor#updateAll}) so that callers can write only the
+ * columns that have actually changed.
+ * <p>
+ * Implementations should bind the identifiers of the bulk identifier methods ({@link #findAllByIdIn(Iterable)} and
+ * {@link #deleteByIdIn(Iterable)}) as a single Postgres array parameter ({@code WHERE id = ANY(?)}) rather than letting
+ * them be expanded into {@code IN (?, ?, ...)}. An expanded list produces a different SQL text, and a different
+ * server side prepared plan, for every list length.
  *
  * @param <ID> Type of the <em>entity</em> identifier .
  * @param <E> Class of the <em>entity</em>.
  */
 
-public abstract class CrudEntityRepoFoundation<ID,E extends Entity<ID>> implements CrudEntityRepo<ID,E>
+public abstract class CrudEntityRepoFoundation<ID,E extends Entity<ID>> implements CrudEntityRepo<ID,E>, JpaSpecificationExecutor<E>
 {
     /**
      * Find all entities by their identifiers.
@@ -32,4 +44,96 @@ public abstract class CrudEntityRepoFoundation<ID,E extends Entity<ID>> implemen
      */
 
     public abstract void deleteByIdIn(@NonNull Iterable<ID> ids);
+
+    /**
+     * List the first entities in the order given by the pageable.
+     *
+     * @param pageable size and sort order of the page. Only offset 0 is used for keyset pagination. Non-null.
+     *
+     * @return Entities on the page. Empty list if there are no entities.
+     */
+
+    public abstract List<E> list(@NonNull Pageable pageable);
+
+    /**
+     * Find the entities with identifiers greater than the given identifier (keyset pagination).
+     * <p>
+     * Generates {@code WHERE id > ? ORDER BY id LIMIT n} when the pageable is sorted by id with offset 0, so the cost
+     * does not grow with how deep into the table the page is.
+     *
+     * @param id identifier of the last entity on the previous page. Non-null.
+     * @param pageable size and sort order of the page. Non-null.
+     *
+     * @return Entities on the page. Empty list if there are no more entities.
+     */
+
+    public abstract List<E> findByIdGreaterThan(@NonNull ID id, @NonNull Pageable pageable);
+
+    /**
+     * List the first identifiers in the order given by the pageable, without loading the entities.
+     *
+     * @param pageable size and sort order of the page. Non-null.
+     *
+     * @return Identifiers on the page. Empty list if there are no entities.
+     */
+
+    public abstract List<ID> findIdByIdIsNotNull(@NonNull Pageable pageable);
+
+    /**
+     * Find the identifiers greater than the given identifier (keyset pagination), without loading the entities.
+     *
+     * @param id identifier of the last entity on the previous page. Non-null.
+     * @param pageable size and sort order of the page. Non-null.
+     *
+     * @return Identifiers on the page. Empty list if there are no more entities.
+     */
+
+    public abstract List<ID> findIdByIdGreaterThan(@NonNull ID id, @NonNull Pageable pageable);
+
+    /**
+     * Copies the identifiers into a primitive array for binding as a single {@code bigint[]} parameter.
+     *
+     * @param ids entity identifiers. Non-null.
+     *
+     * @return identifiers in iteration order
+     */
+
+    protected static long[] toLongArray(@NonNull Iterable<Long> ids)
+    {
+        var values = new long[16];
+        var count = 0;
+
+        for (Long id : ids)
+        {
+            if (count == values.length)
+            {
+                values = Arrays.copyOf(values, count * 2);
+            }
+
+            values[count++] = id;
+        }
+
+        return count == values.length ? values : Arrays.copyOf(values, count);
+    }
+
+    /**
+     * Copies the identifiers into a string array for binding as a single {@code text[]} parameter. Used for
+     * identifier types (such as UUID) that have no array type of their own in Micronaut Data.
+     *
+     * @param ids entity identifiers. Non-null.
+     *
+     * @return string forms of the identifiers in iteration order
+     */
+
+    protected static String[] toStringArray(@NonNull Iterable<?> ids)
+    {
+        var values = new ArrayList<String>();
+
+        for (Object id : ids)
+        {
+            values.add(id.toString());
+        }
+
+        return values.toArray(String[]::new);
+    }
 }
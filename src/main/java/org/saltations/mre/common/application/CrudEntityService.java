@@ -1,8 +1,13 @@
 package org.saltations.mre.common.application;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
 import jakarta.transaction.Transactional;
 import org.saltations.endeavour.FailureDescription;
 import org.saltations.endeavour.Outcome;
@@ -68,6 +73,66 @@ public interface CrudEntityService<ID, IC, C extends IC, E extends Entity<ID>,
 
     Optional<E> find(ID id);
 
+    /**
+     * Find the version and last updated date of the entity, as cheaply as possible (known id filter, entity cache, then
+     * a query for just those columns when the repository supports one).
+     *
+     * @param id Identifier of the entity
+     *
+     * @return Change stamp. Empty if the entity does not exist or is neither versioned nor has change dates.
+     */
+
+    Optional<ChangeStamp> findChangeStamp(ID id);
+
+    /**
+     * Find the entity only if that does not take a trip to the database (e.g. from the entity cache). Must not block,
+     * so that callers on an event loop can try it before handing off to a blocking executor.
+     *
+     * @param id Identifier. Not null.
+     *
+     * @return Entity held in memory. {@link java.util.Optional#empty()} if it would have to be loaded.
+     */
+
+    default Optional<E> findInMemory(ID id)
+    {
+        return Optional.empty();
+    }
+
+    /**
+     * Checks, without a trip to the database, whether there is certainly no entity for the given id (e.g. from a
+     * known identifier filter). Must not block.
+     *
+     * @param id Identifier. Not null.
+     *
+     * @return {@code true} if there is certainly no such entity, {@code false} if there may be one
+     */
+
+    default boolean isKnownMissing(ID id)
+    {
+        return false;
+    }
+
+    /**
+     * Find the entities with the given identifiers, using one query per chunk of identifiers
+     *
+     * @param ids Identifiers. Not null.
+     *
+     * @return Entities found. Entities that are not found are not included. Empty list if none are found.
+     */
+
+    List<E> findAll(Collection<ID> ids);
+
+    /**
+     * Find a page of entities in identifier order, starting after the given identifier
+     *
+     * @param after Identifier of the last entity on the previous page. Null for the first page.
+     * @param limit Maximum number of entities on the page. Positive.
+     *
+     * @return Entities on the page. Empty list if there are no more entities.
+     */
+
+    List<E> findPage(@Nullable ID after, int limit);
+
     /**
      * Creates an entity of type E from the prototype object.
      *
@@ -81,19 +146,216 @@ public interface CrudEntityService<ID, IC, C extends IC, E extends Entity<ID>,
     @Transactional(Transactional.TxType.REQUIRED)
     Outcome<FailureDescription, E> create(C prototype);
 
+    /**
+     * Creates an entity of type E from the prototype object, committed together with other creates arriving at about
+     * the same time if the service group commits.
+     * <p>
+     * Must be called outside any transaction, since the entity is created in a transaction of its own group.
+     *
+     * @param prototype Prototype object that contains the attributes necessary to create an entity of type E. Valid and not null.
+     *
+     * @return Populated entity of type E
+     */
+
+    default Outcome<FailureDescription, E> createInGroup(C prototype)
+    {
+        return create(prototype);
+    }
+
+    /**
+     * Submits an entity of type E to be created from the prototype object, committed together with other creates
+     * arriving at about the same time if the service group commits, without waiting for it.
+     * <p>
+     * Unlike {@link #createInGroup(Object)} this does not hold the calling thread while the group forms, so it is the
+     * one to use from bounded executors. Without group commit the entity is created straight away on the calling thread.
+     *
+     * @param prototype Prototype object that contains the attributes necessary to create an entity of type E. Valid and not null.
+     *
+     * @return completes with the outcome of creating the entity
+     */
+
+    default CompletableFuture<Outcome<FailureDescription, E>> submitInGroup(C prototype)
+    {
+        return CompletableFuture.completedFuture(create(prototype));
+    }
+
+    /**
+     * @return whether {@link #submitInGroup(Object)} commits creates in groups instead of creating them straight away
+     */
+
+    default boolean groupCommits()
+    {
+        return false;
+    }
+
+    /**
+     * Creates entities of type E from the prototype objects in batched inserts within a single transaction.
+     *
+     * @param prototypes Prototype objects that contain the attributes necessary to create entities of type E. Valid and not null.
+     *
+     * @return Populated entities of type E in the same order as the prototypes
+     *
+     * @throws CannotCreateEntity if any of the entities could not be created. None are created in that case.
+     */
+
+    @Transactional(Transactional.TxType.REQUIRED)
+    List<E> createAll(List<C> prototypes) throws CannotCreateEntity;
+
     /**
      * Updates an entity of type E with the contents of the given entity.
+     * <p>
+     * Only the attributes that differ from the stored entity are written. Nothing is written if nothing differs.
      *
      * @param update is the entity with the modified values and the ID of the entity to be modified. Valid and not null.
      *
      * @return updated entity.
      *
-     * @throws CannotUpdateEntity If the entity could not be updated for any reason
+     * @throws CannotUpdateEntity If the entity could not be updated for any reason, including a conflicting change
      */
 
     @Transactional(Transactional.TxType.REQUIRED)
     E update(E update) throws CannotUpdateEntity;
 
+    /**
+     * Updates an entity of type E with the contents of the given entity, coalescing it with other updates of the same
+     * entity arriving shortly after it if the service writes behind.
+     * <p>
+     * Without write-behind the update is made straight away. With it, only the last of a burst of updates of the same
+     * entity is written, and the update is not durable until the returned future completes. See
+     * {@link WriteBehindCoalescer} for the ordering and crash safety guarantees.
+     *
+     * @param update is the entity with the modified values and the ID of the entity to be modified. Valid and not null.
+     *
+     * @return completes with the updated entity, or with {@link CannotUpdateEntity} if the entity could not be updated
+     */
+
+    default CompletableFuture<E> updateBehind(E update)
+    {
+        try
+        {
+            return CompletableFuture.completedFuture(update(update));
+        }
+        catch (CannotUpdateEntity e)
+        {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * @return whether {@link #updateBehind(Entity)} coalesces updates instead of writing them straight away
+     */
+
+    default boolean writesBehind()
+    {
+        return false;
+    }
+
+    /**
+     * Replaces the entity of type E having the given ID with the contents of the given entity.
+     * <p>
+     * Nothing is written if the replacement has the same content as the stored entity.
+     *
+     * @param id is the unique identifier for the entity to be replaced
+     * @param replacement is the entity with the replacement values. Valid and not null.
+     *
+     * @return replaced entity as stored and whether it was written.
+     *
+     * @throws CannotFindEntity If there is no entity with the given ID
+     * @throws CannotUpdateEntity If the entity could not be updated for any other reason
+     * @throws EntityVersionConflict If the entity was changed by someone else while being replaced
+     */
+
+    @Transactional(Transactional.TxType.REQUIRED)
+    default WriteResult<E> replace(ID id, E replacement) throws CannotFindEntity, CannotUpdateEntity, EntityVersionConflict
+    {
+        return replace(id, replacement, null);
+    }
+
+    /**
+     * Replaces the entity of type E having the given ID with the contents of the given entity, provided the stored
+     * entity is still at the expected version.
+     * <p>
+     * Nothing is written if the replacement has the same content as the stored entity. The version of the replacement
+     * itself is ignored.
+     * <p>
+     * A replacement costs a read of the stored entity and, only if something changed, an update of the changed columns
+     * over the version read. It is deliberately not a single {@code UPDATE ... RETURNING}: that statement writes every
+     * column, including ones another writer changed since the client read them and the creation date sent in the body,
+     * and cannot tell an unchanged replacement from a changed one.
+     *
+     * @param id is the unique identifier for the entity to be replaced
+     * @param replacement is the entity with the replacement values. Valid and not null.
+     * @param expectedVersion is the version the caller last saw. Null to replace whatever version is stored.
+     *
+     * @return replaced entity as stored and whether it was written.
+     *
+     * @throws CannotFindEntity If there is no entity with the given ID
+     * @throws CannotUpdateEntity If the entity could not be updated for any other reason
+     * @throws EntityVersionConflict If the stored entity is not at the expected version or was changed by someone else
+     * while being replaced
+     */
+
+    @Transactional(Transactional.TxType.REQUIRED)
+    WriteResult<E> replace(ID id, E replacement, @Nullable Long expectedVersion) throws CannotFindEntity, CannotUpdateEntity, EntityVersionConflict;
+
+    /**
+     * Modifies the stored entity of type E having the given ID in place and writes only the attributes that changed.
+     *
+     * @param id is the unique identifier for the entity to be modified
+     * @param modifications applied to the stored entity. May throw to abandon the modification. Not null.
+     *
+     * @return modified entity and whether it was written.
+     *
+     * @throws CannotFindEntity If there is no entity with the given ID
+     * @throws CannotUpdateEntity If the modified entity could not be written for any other reason
+     * @throws EntityVersionConflict If the entity was changed by someone else while being modified
+     */
+
+    @Transactional(Transactional.TxType.REQUIRED)
+    default WriteResult<E> modify(ID id, Consumer<E> modifications) throws CannotFindEntity, CannotUpdateEntity, EntityVersionConflict
+    {
+        return modify(id, modifications, null);
+    }
+
+    /**
+     * Modifies the stored entity of type E having the given ID in place and writes only the attributes that changed,
+     * provided the stored entity is still at the expected version.
+     *
+     * @param id is the unique identifier for the entity to be modified
+     * @param modifications applied to the stored entity. May throw to abandon the modification. Not null.
+     * @param expectedVersion is the version the caller last saw. Null to modify whatever version is stored.
+     *
+     * @return modified entity and whether it was written.
+     *
+     * @throws CannotFindEntity If there is no entity with the given ID
+     * @throws CannotUpdateEntity If the modified entity could not be written for any other reason
+     * @throws EntityVersionConflict If the stored entity is not at the expected version or was changed by someone else
+     * while being modified
+     */
+
+    @Transactional(Transactional.TxType.REQUIRED)
+    WriteResult<E> modify(ID id, Consumer<E> modifications, @Nullable Long expectedVersion) throws CannotFindEntity, CannotUpdateEntity, EntityVersionConflict;
+
+    /**
+     * Performs a write to the entity with the given ID once any other write to the same entity made through this method
+     * on this node has finished, if the service serializes writes.
+     * <p>
+     * Must be called outside any transaction, with a write that opens its own (e.g. {@link #modify(Object, Consumer)}),
+     * so that no connection is held while waiting.
+     *
+     * @param id is the unique identifier for the entity to be written
+     * @param write performs the write. Not null.
+     *
+     * @return the result of the write
+     *
+     * @throws X whatever the write throws
+     */
+
+    default <T, X extends Exception> T serializeWrite(ID id, StripedWriteLock.Write<T, X> write) throws X
+    {
+        return write.perform();
+    }
+
     /**
      * Deletes an entity of type E with the given ID.
      *
@@ -104,4 +366,25 @@ public interface CrudEntityService<ID, IC, C extends IC, E extends Entity<ID>,
 
     @Transactional(Transactional.TxType.REQUIRED)
     void delete(ID id) throws CannotDeleteEntity;
+
+    /**
+     * Deletes the entities of type E with the given IDs, using one statement per chunk of IDs within a single transaction.
+     * IDs with no matching entity are ignored.
+     *
+     * @param ids are the unique identifiers for the entities. Not null.
+     *
+     * @throws CannotDeleteEntity If the entities could not be deleted for any reason. None are deleted in that case.
+     */
+
+    @Transactional(Transactional.TxType.REQUIRED)
+    void deleteAll(Collection<ID> ids) throws CannotDeleteEntity;
+
+    /**
+     * Registers a listener that is told about every entity created, changed or deleted through this service, and
+     * (when the service has cluster invalidation enabled) through the services of other nodes.
+     *
+     * @param listener listener. Not null.
+     */
+
+    void addInvalidationListener(EntityInvalidationListener<ID> listener);
 }
@@ -1,19 +1,41 @@
 package org.saltations.mre.common.application;
 
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micronaut.cache.SyncCache;
 import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.beans.BeanIntrospection;
+import io.micronaut.core.convert.ConversionService;
+import io.micronaut.data.model.Pageable;
+import io.micronaut.data.model.Sort;
+import io.micronaut.transaction.TransactionOperations;
+import io.micronaut.transaction.support.TransactionSynchronization;
 import io.micronaut.validation.validator.Validator;
+import jakarta.annotation.PreDestroy;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
+import lombok.extern.slf4j.Slf4j;
 import org.saltations.endeavour.FailureDescription;
 import org.saltations.endeavour.Outcome;
 import org.saltations.endeavour.Outcomes;
 import org.saltations.mre.common.domain.Entity;
 import org.saltations.mre.common.domain.EntityMapper;
+import org.saltations.mre.common.domain.Versioned;
 
 /**
  * Foundation (provides some default functionality) service for creating, finding, replacing, patching and deleting <em>entities</em>
@@ -26,10 +48,35 @@ import org.saltations.mre.common.domain.EntityMapper;
  * @param <EM> Type of the <em>entity mapper</em> used by the service
  */
 
+@Slf4j
 public abstract class CrudEntityServiceFoundation<ID, IC, C extends IC, E extends Entity<ID>,
-                                                ER extends CrudEntityRepo<ID,E>,
+                                                ER extends CrudEntityRepoFoundation<ID,E>,
                                                 EM extends EntityMapper<C,E>> implements CrudEntityService<ID, IC, C, E, ER, EM>
 {
+    /**
+     * Number of entities inserted per JDBC batch when creating entities in bulk
+     */
+
+    public static final int CREATE_BATCH_SIZE = 500;
+
+    /**
+     * Number of identifiers sent in a single query when finding or deleting entities in bulk
+     */
+
+    public static final int ID_CHUNK_SIZE = 1000;
+
+    /**
+     * Number of identifiers read per query when seeding the known identifier filter
+     */
+
+    public static final int ID_SCAN_SIZE = 10_000;
+
+    /**
+     * Number of stripes of the counters of cache invalidations, see {@link #cacheLoaded(Object, Entity, long)}
+     */
+
+    private static final int CACHE_STAMP_STRIPES = 1024;
+
     private final Class<E> entityClass;
 
     private final ER entityRepo;
@@ -40,24 +87,384 @@ public abstract class CrudEntityServiceFoundation<ID, IC, C extends IC, E extend
 
     private final Validator validator;
 
+    private final TransactionOperations<Connection> transactions;
+
+    private final EntityChangeTracker<ID,E> changeTracker;
+
+    private final AtomicLongArray cacheStamps = new AtomicLongArray(CACHE_STAMP_STRIPES);
+
+    private EntityLookupBatcher<ID,E> lookupBatcher;
+
+    private SyncCache<?> entityCache;
+
+    private KnownIdFilterConfiguration knownIdConfiguration;
+
+    private volatile KnownIdFilter<ID> knownIds;
+
+    private ExecutorService knownIdSeeder;
+
+    private EntityInvalidationBus invalidationBus;
+
+    private StripedWriteLock writeLock;
+
+    private WriteBehindCoalescer<ID,E> writeBehind;
+
+    private CreateGroupCommitter<C,E> groupCommitter;
+
+    private final List<EntityInvalidationListener<ID>> invalidationListeners = new CopyOnWriteArrayList<>();
+
     /**
      * Primary constructor
      *
-     * @param entityClass Type of the entity
-     * @param entityRepo  Repository for persistence of entities
+     * @param entityClass  Type of the entity
+     * @param entityRepo   Repository for persistence of entities
+     * @param transactions Transactions of the repository, used to drop cached entities once a write commits
      */
 
-    public CrudEntityServiceFoundation(Class<E> entityClass, ER entityRepo, EntityMapper<C,E> entityMapper, Validator validator)
+    public CrudEntityServiceFoundation(Class<E> entityClass, ER entityRepo, EntityMapper<C,E> entityMapper, Validator validator,
+                                       TransactionOperations<Connection> transactions)
     {
         this.entityRepo = entityRepo;
+        this.transactions = transactions;
         this.entityClass = entityClass;
         this.entityMapper = entityMapper;
         this.validator = validator;
+        this.changeTracker = new EntityChangeTracker<>(entityClass);
 
         this.jacksonMapper = new ObjectMapper();
         this.jacksonMapper.registerModule(new JavaTimeModule());
     }
 
+    /**
+     * Opts in to coalescing concurrent {@link #find(Object)} calls into bulk lookups.
+     * <p>
+     * Lookups arriving within the window (or until the batch is full) are resolved with a single
+     * {@link CrudEntityRepoFoundation#findAllByIdIn(Iterable)}. Intended to be called from the constructor of the
+     * concrete service.
+     *
+     * @param configuration window, batch size and number of lookup threads
+     */
+
+    protected void enableLookupBatching(@NonNull LookupBatchingConfiguration configuration)
+    {
+        this.lookupBatcher = new EntityLookupBatcher<>(getEntityName(), entityRepo::findAllByIdIn, configuration.getWindow(),
+                configuration.getMaxBatchSize(), configuration.getThreads());
+    }
+
+    /**
+     * Opts in to group commit for {@link #createInGroup(Object)}.
+     * <p>
+     * Creates arriving within the window (or until the group is full) are created with a single
+     * {@link #createAll(List)}, i.e. one transaction and one batched insert. If that fails each create of the group is
+     * retried on its own with {@link #create(Object)}. Intended to be called from the constructor of the concrete
+     * service.
+     *
+     * @param configuration window, group size (at most {@link #CREATE_BATCH_SIZE}) and number of committing threads
+     */
+
+    protected void enableGroupCommit(@NonNull GroupCommitConfiguration configuration)
+    {
+        this.groupCommitter = new CreateGroupCommitter<>(getEntityName(), this::createAll, this::create, configuration.getWindow(),
+                Math.min(configuration.getMaxGroupSize(), CREATE_BATCH_SIZE), configuration.getThreads());
+    }
+
+    /**
+     * @return the group committer or {@code null} if the service does not group commit
+     */
+
+    public CreateGroupCommitter<C,E> getGroupCommitter()
+    {
+        return groupCommitter;
+    }
+
+    /**
+     * Opts in to coalescing bursts of {@link #updateBehind(Entity)} calls for the same entity into a single write.
+     * <p>
+     * The first update of an entity waits for the window to close; later updates of the same entity within the window
+     * replace it. The last one is then written with {@link #update(Entity)} (serialized with the other writes to the
+     * entity if the service serializes writes) and every caller is completed with the outcome. Intended to be called
+     * from the constructor of the concrete service.
+     *
+     * @param configuration window and number of writer threads
+     */
+
+    protected void enableWriteBehind(@NonNull WriteBehindConfiguration configuration)
+    {
+        this.writeBehind = new WriteBehindCoalescer<>(getEntityName(), update -> serializeWrite(update.getId(), () -> update(update)),
+                configuration.getWindow(), configuration.getWriters());
+    }
+
+    /**
+     * @return the write-behind coalescer or {@code null} if the service does not write behind
+     */
+
+    public WriteBehindCoalescer<ID,E> getWriteBehind()
+    {
+        return writeBehind;
+    }
+
+    /**
+     * Writes the updates still waiting in the write-behind window before the service goes away.
+     */
+
+    @PreDestroy
+    public void flushWriteBehind()
+    {
+        if (writeBehind != null)
+        {
+            writeBehind.close();
+        }
+
+        if (knownIdSeeder != null)
+        {
+            knownIdSeeder.shutdownNow();
+        }
+    }
+
+    /**
+     * Opts in to a read-through cache of entities by identifier for {@link #find(Object)} and {@link #exists(Object)}.
+     * <p>
+     * Entries are invalidated whenever a create, update or delete of the entity by this service commits, and an entity
+     * read while such a write commits is not cached. Size, expiry, eviction
+     * policy and statistics are whatever the cache is configured with (for the Caffeine backed caches, the
+     * {@code micronaut.caches.<name>} section of {@code application.yml}). Entities served from the cache are shared,
+     * so callers must not modify them.
+     *
+     * @param entityCache cache for the entities of this service. Not shared with other entity types.
+     */
+
+    protected void enableCaching(@NonNull SyncCache<?> entityCache)
+    {
+        this.entityCache = entityCache;
+    }
+
+    /**
+     * Opts in to answering lookups of identifiers that definitely do not exist without going to the database.
+     * <p>
+     * A {@link KnownIdFilter} is seeded in the background from a keyset scan of the identifiers and kept current by the
+     * identifiers arriving over the {@link EntityInvalidationBus}, which announces every insert whoever made it. The
+     * filter is only seeded once the bus is listening, and is replaced by a fresh unseeded one and seeded again
+     * whenever the bus may have missed messages. Until seeding completes, and always if the service has no bus, every
+     * lookup goes to the database.
+     * <p>
+     * Inserts made by other nodes (or by SQL) only reach the filter once their announcement arrives, shortly after they
+     * commit. By default a negative answer is therefore confirmed against the database, and an identifier that turns
+     * out to exist is added to the filter, so that an entity created on one node can be read on another straight away.
+     * The filter then only spares the lookup path of missing identifiers, not the database. With
+     * {@link KnownIdFilterConfiguration#isConfirmNegatives()} off, negatives are answered from memory alone (also on
+     * the event loop), at the cost of a not found for an entity inserted elsewhere until its announcement arrives.
+     *
+     * @param configuration sizing of the filter
+     */
+
+    protected void enableKnownIdFilter(@NonNull KnownIdFilterConfiguration configuration)
+    {
+        this.knownIdConfiguration = configuration;
+        this.knownIds = new KnownIdFilter<>(configuration.getExpectedIds(), configuration.getFalsePositiveRate());
+        this.knownIdSeeder = Executors.newSingleThreadExecutor(Thread.ofPlatform().name(getEntityName() + "-id-seeder").daemon(true).factory());
+    }
+
+    /**
+     * Replaces the known identifier filter with an unseeded one, which answers "might contain" for everything, and
+     * seeds it in the background. Identifiers arriving while it is seeded go into the new filter.
+     */
+
+    private void reseedKnownIds()
+    {
+        if (knownIdConfiguration == null)
+        {
+            return;
+        }
+
+        var filter = new KnownIdFilter<ID>(knownIdConfiguration.getExpectedIds(), knownIdConfiguration.getFalsePositiveRate());
+
+        this.knownIds = filter;
+
+        CompletableFuture.runAsync(() -> seed(filter), knownIdSeeder)
+                .exceptionally(e -> {
+                    log.warn("Could not seed the known id filter for {}. Lookups will keep going to the database.", getEntityName(), e);
+                    return null;
+                });
+    }
+
+    private void seed(KnownIdFilter<ID> filter)
+    {
+        var pageable = Pageable.from(0, ID_SCAN_SIZE, Sort.of(Sort.Order.asc("id")));
+        var ids = entityRepo.findIdByIdIsNotNull(pageable);
+        long seeded = 0;
+
+        while (!ids.isEmpty())
+        {
+            if (filter != knownIds)
+            {
+                return;
+            }
+
+            ids.forEach(filter::add);
+            seeded += ids.size();
+
+            ids = ids.size() < ID_SCAN_SIZE ? List.of() : entityRepo.findIdByIdGreaterThan(ids.get(ids.size() - 1), pageable);
+        }
+
+        // A newer gap replaced the filter while this one was scanning, so its scan may predate the missed identifiers
+
+        if (filter != knownIds)
+        {
+            return;
+        }
+
+        filter.markSeeded();
+
+        log.info("Seeded known id filter for {} with {} ids. {} bytes, {} hashes, configured false positive rate {}, estimated {}",
+                getEntityName(), seeded, filter.getMemoryBytes(), filter.getHashCount(),
+                filter.getConfiguredFalsePositiveRate(), filter.getEstimatedFalsePositiveRate());
+    }
+
+    /**
+     * Opts in to keeping the entity cache and known identifier filter of this node coherent with the writes of the
+     * other nodes sharing the database.
+     * <p>
+     * Every write publishes the identifiers it touched, and the database announces every insert. Every node, on
+     * receiving them, drops those entities from its cache and adds them to its known identifier filter. Whenever
+     * messages may have been missed (including before the bus started listening) the node drops its whole cache and
+     * reseeds its known identifier filter. Intended to be called from the constructor of the concrete service, after
+     * the cache and filter have been enabled.
+     *
+     * @param invalidationBus carries the messages between the nodes
+     */
+
+    protected void enableClusterInvalidation(@NonNull EntityInvalidationBus invalidationBus)
+    {
+        @SuppressWarnings("unchecked")
+        var idClass = (Class<ID>) BeanIntrospection.getIntrospection(entityClass).getRequiredProperty("id", Object.class).getType();
+
+        this.invalidationBus = invalidationBus;
+
+        invalidationBus.subscribe(getEntityName(),
+                idText -> ConversionService.SHARED.convert(idText, idClass).ifPresentOrElse(this::invalidateLocally, () -> {
+                    log.warn("Could not read {} id {} from an invalidation message", getEntityName(), idText);
+                    invalidateAllLocally();
+                }),
+                this::invalidateAllLocally);
+    }
+
+    /**
+     * Drops everything held about the entities of this type after invalidations may have been missed
+     */
+
+    private void invalidateAllLocally()
+    {
+        if (entityCache != null)
+        {
+            for (int i = 0; i < CACHE_STAMP_STRIPES; i++)
+            {
+                cacheStamps.incrementAndGet(i);
+            }
+
+            entityCache.invalidateAll();
+        }
+
+        reseedKnownIds();
+        invalidationListeners.forEach(EntityInvalidationListener::invalidatedAll);
+    }
+
+    private void invalidateLocally(ID id)
+    {
+        remember(id);
+        invalidateCached(List.of(id));
+    }
+
+    /**
+     * Drops the entities from the cache of this node and tells the invalidation listeners
+     */
+
+    private void invalidateCached(Collection<ID> ids)
+    {
+        if (entityCache != null)
+        {
+            for (var id : ids)
+            {
+                cacheStamps.incrementAndGet(cacheStampStripe(id));
+                entityCache.invalidate(id);
+            }
+        }
+
+        for (var listener : invalidationListeners)
+        {
+            ids.forEach(listener::invalidated);
+        }
+    }
+
+    /**
+     * Caches an entity read from the database, unless the entity was invalidated while it was being read.
+     * <p>
+     * A read that started before a write committed can return the entity as it was before the write, and finish after
+     * the write has invalidated the cache. Invalidations bump the stamp of the entity before dropping it, so either the
+     * invalidation drops what was put here or the bump is seen here and the entry is dropped again.
+     *
+     * @param id     identifier of the entity
+     * @param entity entity as read
+     * @param stamp  stamp of the entity taken before it was read
+     */
+
+    private void cacheLoaded(ID id, E entity, long stamp)
+    {
+        entityCache.put(id, entity);
+
+        if (cacheStamps.get(cacheStampStripe(id)) != stamp)
+        {
+            entityCache.invalidate(id);
+        }
+    }
+
+    private static int cacheStampStripe(Object id)
+    {
+        return Math.floorMod(id.hashCode(), CACHE_STAMP_STRIPES);
+    }
+
+    @Override
+    public void addInvalidationListener(@NonNull EntityInvalidationListener<ID> listener)
+    {
+        invalidationListeners.add(listener);
+    }
+
+    /**
+     * Opts in to serializing writes to the same entity within this node, so that concurrent writes to a hot entity
+     * wait in-process instead of holding pool connections in Postgres row lock waits. Only writes made through
+     * {@link #serializeWrite(Object, StripedWriteLock.Write)} are serialized.
+     *
+     * @param configuration sizing of the lock
+     */
+
+    protected void enableWriteSerialization(@NonNull WriteSerializationConfiguration configuration)
+    {
+        this.writeLock = new StripedWriteLock(configuration.getStripes(), configuration.getMaxWait());
+    }
+
+    /**
+     * @return the write lock or {@code null} if the service does not serialize writes
+     */
+
+    public StripedWriteLock getWriteLock()
+    {
+        return writeLock;
+    }
+
+    @Override
+    public <T, X extends Exception> T serializeWrite(@NotNull ID id, @NotNull StripedWriteLock.Write<T, X> write) throws X
+    {
+        return writeLock == null ? write.perform() : writeLock.performExclusively(id, write);
+    }
+
+    /**
+     * @return the known identifier filter or {@code null} if the service does not have one
+     */
+
+    public KnownIdFilter<ID> getKnownIdFilter()
+    {
+        return knownIds;
+    }
+
     @Override
     public String getEntityName()
     {
@@ -67,15 +474,146 @@ public abstract class CrudEntityServiceFoundation<ID, IC, C extends IC, E extend
     @Override
     public @NonNull Boolean exists(@NotNull ID id)
     {
+        if (definitelyMissing(id))
+        {
+            return false;
+        }
+
+        if (entityCache != null && entityCache.get(id, entityClass).isPresent())
+        {
+            return true;
+        }
+
         return entityRepo.existsById(id);
     }
 
     @Override
     public Optional<E> find(@NotNull ID id)
     {
+        if (definitelyMissing(id))
+        {
+            return Optional.empty();
+        }
+
+        if (entityCache == null)
+        {
+            return load(id);
+        }
+
+        var cached = entityCache.get(id, entityClass);
+
+        if (cached.isPresent())
+        {
+            return cached;
+        }
+
+        var stamp = cacheStamps.get(cacheStampStripe(id));
+        var loaded = load(id);
+
+        loaded.ifPresent(entity -> cacheLoaded(id, entity, stamp));
+
+        return loaded;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<ChangeStamp> findChangeStamp(@NotNull ID id)
+    {
+        if (definitelyMissing(id))
+        {
+            return Optional.empty();
+        }
+
+        if (entityCache != null)
+        {
+            var cached = entityCache.get(id, entityClass);
+
+            if (cached.isPresent())
+            {
+                return cached.map(ChangeStamp::of);
+            }
+        }
+
+        if (entityRepo instanceof ChangeStampLookup<?> lookup)
+        {
+            return ((ChangeStampLookup<ID>) lookup).findChangeStampById(id);
+        }
+
+        return find(id).map(ChangeStamp::of);
+    }
+
+    @Override
+    public Optional<E> findInMemory(@NotNull ID id)
+    {
+        return entityCache == null ? Optional.empty() : entityCache.get(id, entityClass);
+    }
+
+    @Override
+    public boolean isKnownMissing(@NotNull ID id)
+    {
+        // Answered from memory only, so only when negatives of the filter are trusted without the database
+
+        var filter = knownIds;
+
+        return filter != null && !knownIdConfiguration.isConfirmNegatives() && !filter.mightContain(id);
+    }
+
+    private boolean definitelyMissing(ID id)
+    {
+        var filter = knownIds;
+
+        if (filter == null || filter.mightContain(id))
+        {
+            return false;
+        }
+
+        if (!knownIdConfiguration.isConfirmNegatives())
+        {
+            return true;
+        }
+
+        // Inserted by another node whose announcement has not arrived yet
+
+        if (entityRepo.existsById(id))
+        {
+            filter.add(id);
+            return false;
+        }
+
+        return true;
+    }
+
+    private Optional<E> load(ID id)
+    {
+        if (lookupBatcher != null)
+        {
+            return lookupBatcher.find(id);
+        }
+
         return entityRepo.findById(id);
     }
 
+    @Override
+    public List<E> findAll(@NotNull Collection<ID> ids)
+    {
+        var found = new ArrayList<E>(ids.size());
+
+        for (var chunk : chunks(ids))
+        {
+            found.addAll(entityRepo.findAllByIdIn(chunk));
+        }
+
+        return found;
+    }
+
+    @Override
+    public List<E> findPage(@Nullable ID after, int limit)
+    {
+        var pageable = Pageable.from(0, limit, Sort.of(Sort.Order.asc("id")));
+
+        return after == null ? entityRepo.list(pageable) : entityRepo.findByIdGreaterThan(after, pageable);
+    }
+
     @Transactional(Transactional.TxType.REQUIRED)
     @Override
     public Outcome<FailureDescription, E> create(@NotNull @Valid C prototype)
@@ -93,23 +631,225 @@ public abstract class CrudEntityServiceFoundation<ID, IC, C extends IC, E extend
             return Outcomes.causedFail(e, CrudFailure.CANNOT_CREATE, getEntityName(), prototype);
         }
 
+        remember(created.getId());
+        evict(List.of(created.getId()));
+
         return Outcomes.succeed(created);
     }
 
+    @Override
+    public Outcome<FailureDescription, E> createInGroup(@NotNull @Valid C prototype)
+    {
+        return groupCommitter == null ? create(prototype) : groupCommitter.create(prototype);
+    }
+
+    @Override
+    public CompletableFuture<Outcome<FailureDescription, E>> submitInGroup(@NotNull @Valid C prototype)
+    {
+        if (groupCommitter == null)
+        {
+            return CrudEntityService.super.submitInGroup(prototype);
+        }
+
+        return groupCommitter.submit(prototype);
+    }
+
+    @Override
+    public boolean groupCommits()
+    {
+        return groupCommitter != null;
+    }
+
+    @Transactional(value = Transactional.TxType.REQUIRED, rollbackOn = CannotCreateEntity.class)
+    @Override
+    public List<E> createAll(@NotNull List<C> prototypes) throws CannotCreateEntity
+    {
+        var created = new ArrayList<E>(prototypes.size());
+
+        try
+        {
+            for (int from = 0; from < prototypes.size(); from += CREATE_BATCH_SIZE)
+            {
+                var batch = prototypes.subList(from, Math.min(from + CREATE_BATCH_SIZE, prototypes.size()));
+
+                created.addAll(entityRepo.saveAll(entityMapper.createEntities(batch)));
+            }
+        }
+        catch (Exception e)
+        {
+            throw new CannotCreateEntity(e, getEntityName(), prototypes.size() + " prototypes");
+        }
+
+        var createdIds = created.stream().map(Entity::getId).toList();
+
+        createdIds.forEach(this::remember);
+        evict(createdIds);
+
+        return created;
+    }
+
     @Transactional(Transactional.TxType.REQUIRED)
     @Override
     public E update(@NotNull @Valid E update) throws CannotUpdateEntity
     {
+        var id = update.getId();
+
+        if (id == null)
+        {
+            throw new CannotUpdateEntity(getEntityName(), update);
+        }
+
+        var stored = entityRepo.findById(id).orElseThrow(() -> new CannotUpdateEntity(getEntityName(), update));
+
+        // An update without a version applies to whatever version is stored
+
+        if (update instanceof Versioned versioned && versioned.getVersion() == null)
+        {
+            versioned.setVersion(((Versioned) stored).getVersion());
+        }
+
         try
         {
-            return entityRepo.update(update);
+            return writeChanges(id, changeTracker.snapshot(stored), update).getEntity();
         }
-        catch (Exception e)
+        catch (EntityVersionConflict | CannotFindEntity e)
         {
             throw new CannotUpdateEntity(e, getEntityName(), update);
         }
     }
 
+    @Override
+    public boolean writesBehind()
+    {
+        return writeBehind != null;
+    }
+
+    @Override
+    public CompletableFuture<E> updateBehind(@NotNull @Valid E update)
+    {
+        if (writeBehind == null || update.getId() == null)
+        {
+            return CrudEntityService.super.updateBehind(update);
+        }
+
+        return writeBehind.submit(update);
+    }
+
+    @Transactional(Transactional.TxType.REQUIRED)
+    @Override
+    public WriteResult<E> replace(@NotNull ID id, @NotNull @Valid E replacement, @Nullable Long expectedVersion) throws CannotFindEntity, CannotUpdateEntity, EntityVersionConflict
+    {
+        var stored = entityRepo.findById(id).orElseThrow(() -> new CannotFindEntity(getEntityName(), id));
+        var storedVersion = checkVersion(id, stored, expectedVersion);
+        var snapshot = changeTracker.snapshot(stored);
+
+        // The replacement is laid over the stored entity so that only the columns it changes are written, and so that
+        // clients that re-send unchanged content get the stored entity back without a write. Reading the stored row
+        // costs a round trip over a bare UPDATE ... RETURNING, which is paid back by the columns (and row versions,
+        // index updates and WAL) that are no longer written.
+
+        changeTracker.copyTracked(replacement, stored);
+        stored.setId(id);
+
+        // The replacement is written over the version just read, so a change in between is caught by the update
+
+        if (stored instanceof Versioned versioned)
+        {
+            versioned.setVersion(storedVersion);
+        }
+
+        return writeChanges(id, snapshot, stored);
+    }
+
+    @Transactional(Transactional.TxType.REQUIRED)
+    @Override
+    public WriteResult<E> modify(@NotNull ID id, @NotNull Consumer<E> modifications, @Nullable Long expectedVersion) throws CannotFindEntity, CannotUpdateEntity, EntityVersionConflict
+    {
+        var stored = entityRepo.findById(id).orElseThrow(() -> new CannotFindEntity(getEntityName(), id));
+        var storedVersion = checkVersion(id, stored, expectedVersion);
+        var snapshot = changeTracker.snapshot(stored);
+
+        modifications.accept(stored);
+        stored.setId(id);
+
+        if (stored instanceof Versioned versioned)
+        {
+            versioned.setVersion(storedVersion);
+        }
+
+        return writeChanges(id, snapshot, stored);
+    }
+
+    /**
+     * Checks that the stored entity is at the expected version.
+     *
+     * @return the version of the stored entity. Null if the entity is not versioned.
+     */
+
+    private Long checkVersion(ID id, E stored, Long expectedVersion) throws EntityVersionConflict
+    {
+        var storedVersion = stored instanceof Versioned versioned ? versioned.getVersion() : null;
+
+        if (expectedVersion != null && !expectedVersion.equals(storedVersion))
+        {
+            throw new EntityVersionConflict(getEntityName(), id, expectedVersion);
+        }
+
+        return storedVersion;
+    }
+
+    /**
+     * Tells apart an entity that was changed by someone else from one that was deleted, once a versioned write matched
+     * no row.
+     */
+
+    private boolean changedByOthers(ID id, Long expectedVersion)
+    {
+        return expectedVersion != null && entityRepo.existsById(id);
+    }
+
+    /**
+     * Writes the attributes of the entity that differ from the snapshot. Writes nothing if nothing differs. A versioned
+     * entity is only written if the stored row is still at the entity's version.
+     */
+
+    private WriteResult<E> writeChanges(ID id, Object[] snapshot, E entity) throws CannotFindEntity, CannotUpdateEntity, EntityVersionConflict
+    {
+        var expectedVersion = entity instanceof Versioned versioned ? versioned.getVersion() : null;
+
+        var changed = changeTracker.changedSince(snapshot, entity);
+
+        if (changed.isEmpty())
+        {
+            return WriteResult.unwritten(entity);
+        }
+
+        long rowsUpdated;
+
+        try
+        {
+            rowsUpdated = entityRepo.updateAll(changeTracker.updateOf(id, entity, changed));
+        }
+        catch (Exception e)
+        {
+            throw new CannotUpdateEntity(e, getEntityName(), entity);
+        }
+
+        if (rowsUpdated == 0)
+        {
+            if (changedByOthers(id, expectedVersion))
+            {
+                throw new EntityVersionConflict(getEntityName(), id, expectedVersion);
+            }
+
+            throw new CannotFindEntity(getEntityName(), id);
+        }
+
+        evict(List.of(id));
+
+        return WriteResult.written(entity);
+    }
+
     @Transactional(Transactional.TxType.REQUIRED)
     @Override
     public void delete(@NotNull ID id) throws CannotDeleteEntity
@@ -122,5 +862,78 @@ public abstract class CrudEntityServiceFoundation<ID, IC, C extends IC, E extend
         {
             throw new CannotDeleteEntity(e, getEntityName(), id);
         }
+
+        evict(List.of(id));
+    }
+
+    @Transactional(value = Transactional.TxType.REQUIRED, rollbackOn = CannotDeleteEntity.class)
+    @Override
+    public void deleteAll(@NotNull Collection<ID> ids) throws CannotDeleteEntity
+    {
+        try
+        {
+            for (var chunk : chunks(ids))
+            {
+                entityRepo.deleteByIdIn(chunk);
+            }
+        }
+        catch (Exception e)
+        {
+            throw new CannotDeleteEntity(e, getEntityName(), ids.size() + " ids");
+        }
+
+        evict(ids);
+    }
+
+    private void remember(ID id)
+    {
+        var filter = knownIds;
+
+        if (filter != null)
+        {
+            filter.add(id);
+        }
+    }
+
+    /**
+     * Once the transaction commits, drops the entities from the cache of this node and tells the invalidation
+     * listeners. If cluster invalidation is enabled, also publishes their identifiers so that the other nodes do the
+     * same. Nothing is dropped if the transaction rolls back.
+     * <p>
+     * Dropping them any earlier would let a concurrent read cache the entities as they were before the commit.
+     */
+
+    private void evict(Collection<ID> ids)
+    {
+        var evicted = List.copyOf(ids);
+
+        transactions.findTransactionStatus().ifPresentOrElse(
+                status -> status.registerSynchronization(new TransactionSynchronization()
+                {
+                    @Override
+                    public void afterCommit()
+                    {
+                        invalidateCached(evicted);
+                    }
+                }),
+                () -> invalidateCached(evicted));
+
+        if (invalidationBus != null)
+        {
+            invalidationBus.publish(getEntityName(), evicted);
+        }
+    }
+
+    private List<List<ID>> chunks(Collection<ID> ids)
+    {
+        var distinct = List.copyOf(new LinkedHashSet<>(ids));
+        var chunks = new ArrayList<List<ID>>();
+
+        for (int from = 0; from < distinct.size(); from += ID_CHUNK_SIZE)
+        {
+            chunks.add(distinct.subList(from, Math.min(from + ID_CHUNK_SIZE, distinct.size())));
+        }
+
+        return chunks;
     }
 }
@@ -0,0 +1,247 @@
+package org.saltations.mre.common.application;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.beans.BeanIntrospection;
+import io.micronaut.core.beans.BeanProperty;
+import io.micronaut.data.annotation.DateCreated;
+import io.micronaut.data.annotation.DateUpdated;
+import io.micronaut.data.annotation.GeneratedValue;
+import io.micronaut.data.annotation.Id;
+import io.micronaut.data.annotation.Transient;
+import io.micronaut.data.annotation.Version;
+import io.micronaut.data.repository.jpa.criteria.UpdateSpecification;
+import org.saltations.mre.common.domain.Entity;
+
+/**
+ * Tracks which persistent attributes of an <em>entity</em> have changed so that only those columns are written.
+ * <p>
+ * The identifier, generated values and creation dates are never tracked. A {@link DateUpdated} attribute is not
+ * tracked either, it is set to the current time whenever at least one tracked attribute is written. A {@link Version}
+ * attribute is not tracked but makes every update conditional on the version and increments it.
+ *
+ * @param <ID> Type of the <em>entity</em> identifier.
+ * @param <E> Class of the <em>entity</em>.
+ */
+
+public class EntityChangeTracker<ID, E extends Entity<ID>>
+{
+    private final List<BeanProperty<E, Object>> trackedProperties = new ArrayList<>();
+
+    private final String idPropertyName;
+
+    private final BeanProperty<E, Object> dateUpdatedProperty;
+
+    private final BeanProperty<E, Object> versionProperty;
+
+    /**
+     * Primary constructor
+     *
+     * @param entityClass Type of the entity. Must be introspected.
+     */
+
+    public EntityChangeTracker(@NonNull Class<E> entityClass)
+    {
+        String idName = "id";
+        BeanProperty<E, Object> dateUpdated = null;
+        BeanProperty<E, Object> version = null;
+
+        for (BeanProperty<E, Object> property : BeanIntrospection.getIntrospection(entityClass).getBeanProperties())
+        {
+            if (property.hasAnnotation(Id.class))
+            {
+                idName = property.getName();
+            }
+            else if (property.hasAnnotation(DateUpdated.class))
+            {
+                dateUpdated = property;
+            }
+            else if (property.hasAnnotation(Version.class))
+            {
+                version = property;
+            }
+            else if (!property.isReadOnly()
+                    && !property.hasAnnotation(DateCreated.class)
+                    && !property.hasAnnotation(GeneratedValue.class)
+                    && !property.hasAnnotation(Transient.class))
+            {
+                trackedProperties.add(property);
+            }
+        }
+
+        this.idPropertyName = idName;
+        this.dateUpdatedProperty = dateUpdated;
+        this.versionProperty = version;
+    }
+
+    /**
+     * Captures the current values of the tracked attributes.
+     *
+     * @param entity entity to be captured. Not null.
+     *
+     * @return Values of the tracked attributes in tracking order
+     */
+
+    public Object[] snapshot(@NonNull E entity)
+    {
+        var values = new Object[trackedProperties.size()];
+
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = trackedProperties.get(i).get(entity);
+        }
+
+        return values;
+    }
+
+    /**
+     * Copies the values of the tracked attributes from one entity to another, leaving the untracked ones (identifier,
+     * dates and version) of the target as they are.
+     *
+     * @param source entity holding the values to be copied. Not null.
+     * @param target entity receiving the values. Not null.
+     */
+
+    public void copyTracked(@NonNull E source, @NonNull E target)
+    {
+        for (var property : trackedProperties)
+        {
+            property.set(target, property.get(source));
+        }
+    }
+
+    /**
+     * Finds the tracked attributes whose values in the entity differ from the snapshot.
+     *
+     * @param snapshot values captured by {@link #snapshot(Entity)}. Not null.
+     * @param entity   entity holding the possibly modified values. Not null.
+     *
+     * @return Changed attributes. Empty if nothing has changed.
+     */
+
+    public List<BeanProperty<E, Object>> changedSince(@NonNull Object[] snapshot, @NonNull E entity)
+    {
+        var changed = new ArrayList<BeanProperty<E, Object>>();
+
+        for (int i = 0; i < snapshot.length; i++)
+        {
+            var property = trackedProperties.get(i);
+
+            if (!Objects.equals(snapshot[i], property.get(entity)))
+            {
+                changed.add(property);
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * Creates an update of the row with the given identifier that only sets the changed attributes (plus the
+     * {@link DateUpdated} attribute if the entity has one).
+     * <p>
+     * The {@link DateUpdated} attribute of the entity is set to the same value that is written. If the entity has a
+     * {@link Version} attribute, only the row with the entity's current version is updated (so no rows are updated if
+     * someone else got there first) and the entity's version is set to the incremented version that is written.
+     *
+     * @param id      identifier of the row to be updated. Not null.
+     * @param entity  entity holding the values to be written. Not null.
+     * @param changed attributes to be written. Not empty.
+     *
+     * @return Update specification for {@link io.micronaut.data.repository.jpa.JpaSpecificationExecutor#updateAll(UpdateSpecification)}
+     */
+
+    public UpdateSpecification<E> updateOf(@NonNull ID id, @NonNull E entity, @NonNull List<BeanProperty<E, Object>> changed)
+    {
+        if (dateUpdatedProperty != null)
+        {
+            dateUpdatedProperty.set(entity, now(dateUpdatedProperty.getType()));
+        }
+
+        var expectedVersion = versionProperty == null ? null : versionProperty.get(entity);
+
+        if (expectedVersion != null)
+        {
+            versionProperty.set(entity, increment(expectedVersion));
+        }
+
+        return (root, query, criteriaBuilder) -> {
+
+            for (var property : changed)
+            {
+                var value = property.get(entity);
+
+                if (value == null)
+                {
+                    query.set(root.<Object>get(property.getName()), criteriaBuilder.nullLiteral(property.getType()));
+                }
+                else
+                {
+                    query.set(root.<Object>get(property.getName()), value);
+                }
+            }
+
+            if (dateUpdatedProperty != null)
+            {
+                query.set(root.<Object>get(dateUpdatedProperty.getName()), dateUpdatedProperty.get(entity));
+            }
+
+            var sameId = criteriaBuilder.equal(root.get(idPropertyName), id);
+
+            if (expectedVersion == null)
+            {
+                return sameId;
+            }
+
+            query.set(root.<Object>get(versionProperty.getName()), versionProperty.get(entity));
+
+            return criteriaBuilder.and(sameId, criteriaBuilder.equal(root.get(versionProperty.getName()), expectedVersion));
+        };
+    }
+
+    private static Object increment(Object version)
+    {
+        if (version instanceof Long value)
+        {
+            return value + 1;
+        }
+
+        if (version instanceof Integer value)
+        {
+            return value + 1;
+        }
+
+        if (version instanceof Short value)
+        {
+            return (short) (value + 1);
+        }
+
+        throw new IllegalStateException("Unsupported type for a version attribute: " + version.getClass().getName());
+    }
+
+    private static Object now(Class<?> type)
+    {
+        if (type == OffsetDateTime.class)
+        {
+            return OffsetDateTime.now();
+        }
+
+        if (type == Instant.class)
+        {
+            return Instant.now();
+        }
+
+        if (type == LocalDateTime.class)
+        {
+            return LocalDateTime.now();
+        }
+
+        throw new IllegalStateException("Unsupported type for a date updated attribute: " + type.getName());
+    }
+}
@@ -0,0 +1,38 @@
+package org.saltations.mre.common.application;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+import io.micronaut.core.annotation.NonNull;
+
+/**
+ * Carries compact "this <em>entity</em> changed" messages (entity name + identifiers) between the nodes sharing a
+ * database, so that each node can drop what it has cached for those entities.
+ * <p>
+ * Messages published inside a transaction are only delivered once the transaction commits, and are not delivered at
+ * all if it rolls back. Every node, including the publishing one, receives every message.
+ */
+
+public interface EntityInvalidationBus
+{
+    /**
+     * Publishes that the entities with the given identifiers have been created, changed or deleted.
+     *
+     * @param entityName name of the entity type. Not null.
+     * @param ids        identifiers of the entities. Not null.
+     */
+
+    void publish(@NonNull String entityName, @NonNull Collection<?> ids);
+
+    /**
+     * Subscribes to the messages for an entity type.
+     *
+     * @param entityName            name of the entity type. Not null.
+     * @param onInvalidation        receives the string form of each identifier in a message. Not null.
+     * @param onMissedInvalidations called when messages may have been lost and everything cached for the entity type
+     *                              should be dropped: once delivery starts (messages sent before it were not seen)
+     *                              and again whenever the listener had to reconnect. Not null.
+     */
+
+    void subscribe(@NonNull String entityName, @NonNull Consumer<String> onInvalidation, @NonNull Runnable onMissedInvalidations);
+}
@@ -0,0 +1,25 @@
+package org.saltations.mre.common.application;
+
+/**
+ * Told about <em>entities</em> that have been created, changed or deleted, so that anything derived from them (such
+ * as encoded responses) can be dropped.
+ *
+ * @param <ID> Type of the <em>entity</em> identifier.
+ */
+
+public interface EntityInvalidationListener<ID>
+{
+    /**
+     * The entity with the identifier has been created, changed or deleted.
+     *
+     * @param id identifier of the entity
+     */
+
+    void invalidated(ID id);
+
+    /**
+     * Invalidations may have been missed and anything derived from any entity of the type should be dropped.
+     */
+
+    void invalidatedAll();
+}
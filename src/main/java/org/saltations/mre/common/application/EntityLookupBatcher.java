@@ -0,0 +1,226 @@
+package org.saltations.mre.common.application;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import io.micronaut.core.annotation.NonNull;
+import org.saltations.mre.common.domain.Entity;
+
+/**
+ * Coalesces concurrent lookups of <em>entities</em> by identifier into bulk lookups (a "dataloader").
+ * <p>
+ * Lookups that arrive within a short window, or until the batch is full, are resolved together with a single bulk
+ * lookup. Each caller gets the result for its own identifier. Callers asking for an identifier that is already waiting
+ * or already being looked up share that lookup instead of starting a new one.
+ * <p>
+ * Callers block until their lookup is resolved, which fits the blocking (IO executor) controllers. Windows are timed
+ * by a single scheduler thread and the bulk lookups of closed windows run on a pool of lookup threads, so that one slow
+ * lookup does not hold up the batches behind it.
+ *
+ * @param <ID> Type of the <em>entity</em> identifier.
+ * @param <E> Class of the <em>entity</em>.
+ */
+
+public class EntityLookupBatcher<ID, E extends Entity<ID>>
+{
+    private final Function<List<ID>, List<E>> bulkLookup;
+
+    private final long windowNanos;
+
+    private final int maxBatchSize;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final ExecutorService lookups;
+
+    private final Object lock = new Object();
+
+    /**
+     * Lookups waiting for the window to close. Guarded by lock.
+     */
+
+    private Map<ID, CompletableFuture<Optional<E>>> waiting = new LinkedHashMap<>();
+
+    /**
+     * Lookups whose batch has been sent but not yet resolved. Guarded by lock.
+     */
+
+    private final Map<ID, CompletableFuture<Optional<E>>> inFlight = new HashMap<>();
+
+    /**
+     * Primary constructor
+     *
+     * @param entityName   Name of the entity, used to name the threads
+     * @param bulkLookup   Finds the entities for a list of identifiers. Entities that are not found are left out.
+     * @param window       How long the first lookup of a batch waits for others to join it
+     * @param maxBatchSize Largest number of identifiers in a single bulk lookup. A full batch is sent straight away.
+     * @param threads      Number of threads running the bulk lookups of closed windows, and so of lookups (and
+     *                     connections) at once
+     */
+
+    public EntityLookupBatcher(@NonNull String entityName, @NonNull Function<List<ID>, List<E>> bulkLookup, @NonNull Duration window,
+                               int maxBatchSize, int threads)
+    {
+        if (maxBatchSize < 1)
+        {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+
+        if (threads < 1)
+        {
+            throw new IllegalArgumentException("Lookup batching needs at least one lookup thread");
+        }
+
+        this.bulkLookup = bulkLookup;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name(entityName + "-lookup-batcher").daemon(true).factory());
+        this.lookups = Executors.newFixedThreadPool(threads, Thread.ofPlatform().name(entityName + "-lookup-", 0).daemon(true).factory());
+    }
+
+    /**
+     * Finds the entity with the given identifier as part of a batch.
+     *
+     * @param id identifier of the entity. Not null.
+     *
+     * @return the entity or empty if there is no entity with that identifier
+     */
+
+    public Optional<E> find(@NonNull ID id)
+    {
+        CompletableFuture<Optional<E>> lookup;
+        Map<ID, CompletableFuture<Optional<E>>> fullBatch = null;
+
+        synchronized (lock)
+        {
+            lookup = inFlight.get(id);
+
+            if (lookup == null)
+            {
+                lookup = waiting.get(id);
+            }
+
+            if (lookup == null)
+            {
+                lookup = new CompletableFuture<>();
+                waiting.put(id, lookup);
+
+                if (waiting.size() >= maxBatchSize)
+                {
+                    fullBatch = takeWaiting();
+                }
+                else if (waiting.size() == 1)
+                {
+                    scheduler.schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+
+        // A full batch is resolved on the thread that filled it rather than waiting for the scheduler
+
+        if (fullBatch != null)
+        {
+            resolve(fullBatch);
+        }
+
+        try
+        {
+            return lookup.join();
+        }
+        catch (CompletionException e)
+        {
+            if (e.getCause() instanceof RuntimeException cause)
+            {
+                throw cause;
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Closes the window, handing its batch to a lookup thread
+     */
+
+    private void flush()
+    {
+        Map<ID, CompletableFuture<Optional<E>>> batch;
+
+        synchronized (lock)
+        {
+            batch = takeWaiting();
+        }
+
+        if (batch.isEmpty())
+        {
+            return;
+        }
+
+        try
+        {
+            lookups.execute(() -> resolve(batch));
+        }
+        catch (RejectedExecutionException e)
+        {
+            resolve(batch);
+        }
+    }
+
+    /**
+     * Moves the waiting lookups into flight. Must be called holding the lock.
+     */
+
+    private Map<ID, CompletableFuture<Optional<E>>> takeWaiting()
+    {
+        var batch = waiting;
+
+        waiting = new LinkedHashMap<>();
+        inFlight.putAll(batch);
+
+        return batch;
+    }
+
+    private void resolve(Map<ID, CompletableFuture<Optional<E>>> batch)
+    {
+        if (batch.isEmpty())
+        {
+            return;
+        }
+
+        try
+        {
+            var foundById = new HashMap<ID, E>();
+
+            for (E found : bulkLookup.apply(new ArrayList<>(batch.keySet())))
+            {
+                foundById.put(found.getId(), found);
+            }
+
+            batch.forEach((id, lookup) -> lookup.complete(Optional.ofNullable(foundById.get(id))));
+        }
+        catch (RuntimeException e)
+        {
+            batch.values().forEach(lookup -> lookup.completeExceptionally(e));
+        }
+        finally
+        {
+            synchronized (lock)
+            {
+                inFlight.keySet().removeAll(batch.keySet());
+            }
+        }
+    }
+}
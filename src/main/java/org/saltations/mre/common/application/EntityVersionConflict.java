@@ -0,0 +1,34 @@
+package org.saltations.mre.common.application;
+
+import java.text.MessageFormat;
+
+import io.micronaut.http.HttpStatus;
+import io.micronaut.problem.HttpStatusType;
+import io.micronaut.serde.annotation.Serdeable;
+import org.saltations.mre.common.core.errors.DomainProblemBase;
+
+/**
+ * Denotes the failure to write an entity of a given type because it has been changed since the version the writer
+ * started from
+ */
+
+@Serdeable
+public class EntityVersionConflict extends DomainProblemBase
+{
+    private static final String PROBLEM_TYPE = "entity-version-conflict";
+
+    private static final String TITLE_TEMPLATE = "Conflicting change to {0}";
+
+    public EntityVersionConflict(String resourceTypeName, Object id, Object expectedVersion)
+    {
+        super(PROBLEM_TYPE, MessageFormat.format(TITLE_TEMPLATE, resourceTypeName),"The {0} with id {1} is no longer at version {2}", resourceTypeName, id.toString(), expectedVersion.toString());
+        statusType(new HttpStatusType(HttpStatus.PRECONDITION_FAILED));
+    }
+
+    public EntityVersionConflict(Throwable e, String resourceTypeName, Object id, Object expectedVersion)
+    {
+        super(e, PROBLEM_TYPE, MessageFormat.format(TITLE_TEMPLATE, resourceTypeName),"The {0} with id {1} is no longer at version {2}", resourceTypeName, id.toString(), expectedVersion.toString());
+        statusType(new HttpStatusType(HttpStatus.PRECONDITION_FAILED));
+    }
+
+}
@@ -0,0 +1,46 @@
+package org.saltations.mre.common.application;
+
+import java.time.Duration;
+
+import io.micronaut.context.annotation.EachProperty;
+import io.micronaut.context.annotation.Parameter;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Timing and sizing of the {@link CreateGroupCommitter} of an entity service, configured under
+ * {@code group-commit.<name>}.
+ * <p>
+ * A service without a configuration commits every create in its own transaction.
+ */
+
+@Getter
+@Setter
+@EachProperty("group-commit")
+public class GroupCommitConfiguration
+{
+    private final String name;
+
+    /**
+     * How long the first create of a group waits for others to join it
+     */
+
+    private Duration window = Duration.ofNanos(500_000);
+
+    /**
+     * Largest number of creates in a group
+     */
+
+    private int maxGroupSize = 200;
+
+    /**
+     * Number of threads (and so connections) committing groups at once
+     */
+
+    private int threads = 2;
+
+    public GroupCommitConfiguration(@Parameter String name)
+    {
+        this.name = name;
+    }
+}
@@ -0,0 +1,200 @@
+package org.saltations.mre.common.application;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import io.micronaut.core.annotation.NonNull;
+
+/**
+ * Bloom filter of the identifiers of the <em>entities</em> known to exist.
+ * <p>
+ * A negative answer from {@link #mightContain(Object)} is definite: there is no entity with that identifier, so the
+ * caller can skip the database. A positive answer only means the entity may exist.
+ * <p>
+ * Identifiers can be added but not removed. Deleted entities stay in the filter and only cost a database lookup, the
+ * same as a false positive. The filter answers "might contain" for everything until it is marked as seeded.
+ *
+ * @param <ID> Type of the <em>entity</em> identifier.
+ */
+
+public class KnownIdFilter<ID>
+{
+    private final AtomicLongArray words;
+
+    private final long bitCount;
+
+    private final int hashCount;
+
+    private final double configuredFalsePositiveRate;
+
+    private final AtomicLong setBitCount = new AtomicLong();
+
+    private volatile boolean seeded;
+
+    /**
+     * Primary constructor
+     *
+     * @param expectedIds       Number of identifiers the filter is sized for
+     * @param falsePositiveRate Rate of false positives at the expected number of identifiers. Between 0 and 1.
+     */
+
+    public KnownIdFilter(long expectedIds, double falsePositiveRate)
+    {
+        if (expectedIds < 1)
+        {
+            throw new IllegalArgumentException("Expected number of ids must be at least 1");
+        }
+
+        if (falsePositiveRate <= 0.0 || falsePositiveRate >= 1.0)
+        {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+        }
+
+        // Standard Bloom filter sizing: m = -n ln(p) / (ln 2)^2 and k = (m / n) ln 2
+
+        var bits = (long) Math.ceil(-expectedIds * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        var words = Math.toIntExact((bits + 63) / 64);
+
+        this.words = new AtomicLongArray(words);
+        this.bitCount = words * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedIds * Math.log(2)));
+        this.configuredFalsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * Records that an entity with the identifier exists.
+     *
+     * @param id identifier. Not null.
+     */
+
+    public void add(@NonNull ID id)
+    {
+        var hash = hash(id);
+        var h1 = (int) hash;
+        var h2 = (int) (hash >>> 32);
+
+        for (int i = 0; i < hashCount; i++)
+        {
+            var bit = Math.floorMod(h1 + i * h2, bitCount);
+            var mask = 1L << bit;
+            var word = (int) (bit >>> 6);
+
+            while (true)
+            {
+                var current = words.get(word);
+
+                if ((current & mask) != 0)
+                {
+                    break;
+                }
+
+                if (words.compareAndSet(word, current, current | mask))
+                {
+                    setBitCount.incrementAndGet();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Says whether an entity with the identifier might exist.
+     *
+     * @param id identifier. Not null.
+     *
+     * @return {@code false} if the entity definitely does not exist, {@code true} if it might
+     */
+
+    public boolean mightContain(@NonNull ID id)
+    {
+        if (!seeded)
+        {
+            return true;
+        }
+
+        var hash = hash(id);
+        var h1 = (int) hash;
+        var h2 = (int) (hash >>> 32);
+
+        for (int i = 0; i < hashCount; i++)
+        {
+            var bit = Math.floorMod(h1 + i * h2, bitCount);
+
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0)
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Marks the filter as holding every existing identifier, after which negative answers are trusted.
+     */
+
+    public void markSeeded()
+    {
+        seeded = true;
+    }
+
+    public boolean isSeeded()
+    {
+        return seeded;
+    }
+
+    public double getConfiguredFalsePositiveRate()
+    {
+        return configuredFalsePositiveRate;
+    }
+
+    /**
+     * @return false positive rate estimated from the fraction of bits currently set
+     */
+
+    public double getEstimatedFalsePositiveRate()
+    {
+        return Math.pow((double) setBitCount.get() / bitCount, hashCount);
+    }
+
+    public long getMemoryBytes()
+    {
+        return bitCount / 8;
+    }
+
+    public int getHashCount()
+    {
+        return hashCount;
+    }
+
+    private static long hash(Object id)
+    {
+        if (id instanceof Long value)
+        {
+            return mix(value);
+        }
+
+        if (id instanceof UUID value)
+        {
+            return mix(value.getMostSignificantBits() ^ mix(value.getLeastSignificantBits()));
+        }
+
+        return mix(id.hashCode());
+    }
+
+    /**
+     * 64 bit finalizer from MurmurHash3, spreads the bits of the identifier over the whole word
+     */
+
+    private static long mix(long value)
+    {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+
+        return value;
+    }
+}
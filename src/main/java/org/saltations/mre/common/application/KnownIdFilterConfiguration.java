@@ -0,0 +1,44 @@
+package org.saltations.mre.common.application;
+
+import io.micronaut.context.annotation.EachProperty;
+import io.micronaut.context.annotation.Parameter;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Sizing of the {@link KnownIdFilter} of an entity service, configured under {@code id-filters.<name>}.
+ * <p>
+ * A service without a configuration has no filter.
+ */
+
+@Getter
+@Setter
+@EachProperty("id-filters")
+public class KnownIdFilterConfiguration
+{
+    private final String name;
+
+    /**
+     * Number of identifiers the filter is sized for
+     */
+
+    private long expectedIds = 1_000_000;
+
+    /**
+     * Rate of false positives at the expected number of identifiers
+     */
+
+    private double falsePositiveRate = 0.01;
+
+    /**
+     * Whether a negative answer of the filter is confirmed against the database. Without confirmation an entity
+     * inserted by another node is not found here until the announcement of its insert arrives.
+     */
+
+    private boolean confirmNegatives = true;
+
+    public KnownIdFilterConfiguration(@Parameter String name)
+    {
+        this.name = name;
+    }
+}
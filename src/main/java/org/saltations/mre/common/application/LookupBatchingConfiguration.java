@@ -0,0 +1,46 @@
+package org.saltations.mre.common.application;
+
+import java.time.Duration;
+
+import io.micronaut.context.annotation.EachProperty;
+import io.micronaut.context.annotation.Parameter;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Timing and sizing of the {@link EntityLookupBatcher} of an entity service, configured under
+ * {@code lookup-batching.<name>}.
+ * <p>
+ * A service without a configuration looks every entity up on its own.
+ */
+
+@Getter
+@Setter
+@EachProperty("lookup-batching")
+public class LookupBatchingConfiguration
+{
+    private final String name;
+
+    /**
+     * How long the first lookup of a batch waits for others to join it
+     */
+
+    private Duration window = Duration.ofMillis(2);
+
+    /**
+     * Largest number of identifiers in a single bulk lookup
+     */
+
+    private int maxBatchSize = 100;
+
+    /**
+     * Number of threads (and so connections) running bulk lookups at once
+     */
+
+    private int threads = 2;
+
+    public LookupBatchingConfiguration(@Parameter String name)
+    {
+        this.name = name;
+    }
+}
@@ -0,0 +1,108 @@
+package org.saltations.mre.common.application;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import io.micronaut.core.annotation.NonNull;
+
+/**
+ * Hands out <em>entity</em> identifiers from blocks reserved from a database sequence (the "pooled" hi-lo scheme).
+ * <p>
+ * The sequence is incremented by the block size, so each value it returns reserves the identifiers from that value
+ * up to (but not including) the value plus the block size. Only one in every block size identifiers costs a round
+ * trip, and the identifiers are known before the insert, so inserts can be batched without reading generated keys
+ * back. Identifiers are unique across nodes but only roughly ordered, and the rest of a block is skipped when the
+ * application restarts.
+ * <p>
+ * Reserving a block is a database round trip made while holding the lock, so the lock is a {@link ReentrantLock}
+ * rather than a monitor: a virtual thread waiting on the database does not pin its carrier thread.
+ */
+
+public class PooledIdAllocator
+{
+    private final int blockSize;
+
+    private final LongSupplier nextBlockStart;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Next identifier to hand out. Guarded by lock.
+     */
+
+    private long next;
+
+    /**
+     * First identifier past the current block. Guarded by lock.
+     */
+
+    private long limit;
+
+    /**
+     * Guarded by lock.
+     */
+
+    private long blocksReserved;
+
+    /**
+     * Primary constructor
+     *
+     * @param blockSize      Number of identifiers in a block. Must be the increment of the sequence.
+     * @param nextBlockStart Gets the next value of the sequence, i.e. the first identifier of a fresh block
+     */
+
+    public PooledIdAllocator(int blockSize, @NonNull LongSupplier nextBlockStart)
+    {
+        if (blockSize < 1)
+        {
+            throw new IllegalArgumentException("Block size must be at least 1");
+        }
+
+        this.blockSize = blockSize;
+        this.nextBlockStart = nextBlockStart;
+    }
+
+    /**
+     * @return a fresh identifier
+     */
+
+    public long next()
+    {
+        lock.lock();
+
+        try
+        {
+            if (next >= limit)
+            {
+                next = nextBlockStart.getAsLong();
+                limit = next + blockSize;
+                blocksReserved++;
+            }
+
+            return next++;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public int getBlockSize()
+    {
+        return blockSize;
+    }
+
+    public long getBlocksReserved()
+    {
+        lock.lock();
+
+        try
+        {
+            return blocksReserved;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+}
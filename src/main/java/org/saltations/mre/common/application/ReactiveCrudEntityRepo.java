@@ -0,0 +1,53 @@
+package org.saltations.mre.common.application;
+
+import java.util.Collection;
+
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.data.model.Pageable;
+import io.micronaut.data.repository.reactive.ReactorCrudRepository;
+import org.saltations.mre.common.domain.Entity;
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking (R2DBC) counterpart of {@link CrudEntityRepo} for the reads of <em>entities</em>
+ *
+ * @param <ID> Type of the <em>entity</em> identifier.
+ * @param <E> Class of the <em>entity</em>.
+ */
+
+public interface ReactiveCrudEntityRepo<ID, E extends Entity<ID>> extends ReactorCrudRepository<E, ID>
+{
+    /**
+     * Find the entities with the given identifiers
+     * <p>
+     * Implementations bind the identifiers as a single Postgres array parameter ({@code id = ANY(:ids)}), like the
+     * blocking repositories do, rather than as one parameter per identifier.
+     *
+     * @param ids entity identifiers. Non-null.
+     *
+     * @return Entities found. Entities that are not found are left out.
+     */
+
+    Flux<E> findAllByIdIn(@NonNull Collection<ID> ids);
+
+    /**
+     * List a page of entities
+     *
+     * @param pageable page size and sort order. Non-null.
+     *
+     * @return Entities on the page
+     */
+
+    Flux<E> list(@NonNull Pageable pageable);
+
+    /**
+     * Find a page of entities with identifiers greater than the given one (keyset pagination)
+     *
+     * @param id       identifier of the last entity on the previous page. Non-null.
+     * @param pageable page size and sort order. Non-null.
+     *
+     * @return Entities on the page
+     */
+
+    Flux<E> findByIdGreaterThan(@NonNull ID id, @NonNull Pageable pageable);
+}
@@ -0,0 +1,51 @@
+package org.saltations.mre.common.application;
+
+import java.util.Collection;
+import java.util.List;
+
+import io.micronaut.core.annotation.Nullable;
+import org.saltations.mre.common.domain.Entity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of the reads of {@link CrudEntityService}. Nothing blocks a thread while waiting for the
+ * database, so a request in flight does not hold one.
+ *
+ * @param <ID> Type of the <em>entity</em> identifier.
+ * @param <E> Class of the <em>entity</em>.
+ */
+
+public interface ReactiveCrudEntityService<ID, E extends Entity<ID>>
+{
+    /**
+     * Find the entity by its identifier
+     *
+     * @param id Identifier. Not null.
+     *
+     * @return the entity. Empty if there is no entity matching the id.
+     */
+
+    Mono<E> find(ID id);
+
+    /**
+     * Find the entities with the given identifiers
+     *
+     * @param ids Identifiers. Not null.
+     *
+     * @return Entities found. Entities that are not found are not included.
+     */
+
+    Flux<E> findAll(Collection<ID> ids);
+
+    /**
+     * Find a page of entities in identifier order, starting after the given identifier
+     *
+     * @param after Identifier of the last entity on the previous page. Null for the first page.
+     * @param limit Maximum number of entities on the page. Positive.
+     *
+     * @return Entities on the page. Empty list if there are no more entities.
+     */
+
+    Mono<List<E>> findPage(@Nullable ID after, int limit);
+}
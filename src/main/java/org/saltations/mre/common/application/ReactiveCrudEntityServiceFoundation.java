@@ -0,0 +1,58 @@
+package org.saltations.mre.common.application;
+
+import java.util.Collection;
+import java.util.List;
+
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.data.model.Pageable;
+import io.micronaut.data.model.Sort;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import org.saltations.mre.common.domain.Entity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Foundation (provides some default functionality) non-blocking service for finding <em>entities</em>
+ *
+ * @param <ID> Type of the <em>entity</em> identifier .
+ * @param <E> Class of the <em>entity</em>.
+ * @param <ER> Type of the <em>reactive entity repository</em> used by the service
+ */
+
+public abstract class ReactiveCrudEntityServiceFoundation<ID, E extends Entity<ID>, ER extends ReactiveCrudEntityRepo<ID,E>> implements ReactiveCrudEntityService<ID, E>
+{
+    @Getter
+    private final ER entityRepo;
+
+    /**
+     * Primary constructor
+     *
+     * @param entityRepo reactive repository for the entities
+     */
+
+    public ReactiveCrudEntityServiceFoundation(ER entityRepo)
+    {
+        this.entityRepo = entityRepo;
+    }
+
+    @Override
+    public Mono<E> find(@NotNull ID id)
+    {
+        return entityRepo.findById(id);
+    }
+
+    @Override
+    public Flux<E> findAll(@NotNull Collection<ID> ids)
+    {
+        return ids.isEmpty() ? Flux.empty() : entityRepo.findAllByIdIn(ids);
+    }
+
+    @Override
+    public Mono<List<E>> findPage(@Nullable ID after, int limit)
+    {
+        var pageable = Pageable.from(0, limit, Sort.of(Sort.Order.asc("id")));
+
+        return (after == null ? entityRepo.list(pageable) : entityRepo.findByIdGreaterThan(after, pageable)).collectList();
+    }
+}
@@ -0,0 +1,218 @@
+package org.saltations.mre.common.application;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.micronaut.core.annotation.NonNull;
+
+/**
+ * Serializes writes to the same <em>entity</em> within this node, before they borrow a database connection.
+ * <p>
+ * Identifiers are hashed onto a fixed number of stripes, each a lock, so concurrent writes to one hot entity queue up
+ * here instead of holding pool connections while they wait on the Postgres row lock. Unrelated identifiers rarely
+ * share a stripe. The lock only saves connections; the database still guarantees correctness, so a write that has
+ * waited longer than the maximum wait goes ahead without the lock rather than fail.
+ * <p>
+ * Counts acquisitions, contended acquisitions, waits that gave up and the total and longest time spent waiting.
+ */
+
+public class StripedWriteLock
+{
+    /**
+     * A write to be performed while holding the lock for an identifier
+     *
+     * @param <T> Type of the result
+     * @param <X> Type of the checked exception thrown by the write
+     */
+
+    @FunctionalInterface
+    public interface Write<T, X extends Exception>
+    {
+        T perform() throws X;
+    }
+
+    private final ReentrantLock[] stripes;
+
+    private final long maxWaitNanos;
+
+    private final LongAdder acquisitions = new LongAdder();
+
+    private final LongAdder contendedAcquisitions = new LongAdder();
+
+    private final LongAdder timeouts = new LongAdder();
+
+    private final LongAdder totalWaitNanos = new LongAdder();
+
+    private final AtomicLong longestWaitNanos = new AtomicLong();
+
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    /**
+     * Primary constructor
+     *
+     * @param stripes number of stripes. Rounded up to a power of two.
+     * @param maxWait longest a write waits for its stripe before going ahead without it
+     */
+
+    public StripedWriteLock(int stripes, @NonNull Duration maxWait)
+    {
+        if (stripes < 1)
+        {
+            throw new IllegalArgumentException("Need at least one stripe");
+        }
+
+        var count = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+
+        this.stripes = new ReentrantLock[count];
+
+        for (int i = 0; i < count; i++)
+        {
+            this.stripes[i] = new ReentrantLock();
+        }
+
+        this.maxWaitNanos = maxWait.toNanos();
+    }
+
+    /**
+     * Performs the write while holding the stripe of the identifier.
+     *
+     * @param id    identifier of the entity being written. Not null.
+     * @param write the write. Should open its own transaction so that no connection is held while waiting. Not null.
+     *
+     * @return the result of the write
+     *
+     * @throws X whatever the write throws
+     */
+
+    public <T, X extends Exception> T performExclusively(@NonNull Object id, @NonNull Write<T, X> write) throws X
+    {
+        var stripe = stripeOf(id);
+
+        acquisitions.increment();
+
+        if (stripe.tryLock())
+        {
+            try
+            {
+                return write.perform();
+            }
+            finally
+            {
+                stripe.unlock();
+            }
+        }
+
+        contendedAcquisitions.increment();
+
+        var locked = awaitStripe(stripe);
+
+        try
+        {
+            return write.perform();
+        }
+        finally
+        {
+            if (locked)
+            {
+                stripe.unlock();
+            }
+        }
+    }
+
+    private boolean awaitStripe(ReentrantLock stripe)
+    {
+        var start = System.nanoTime();
+        var locked = false;
+
+        waiting.incrementAndGet();
+
+        try
+        {
+            locked = stripe.tryLock(maxWaitNanos, TimeUnit.NANOSECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            waiting.decrementAndGet();
+
+            var waited = System.nanoTime() - start;
+
+            totalWaitNanos.add(waited);
+            longestWaitNanos.accumulateAndGet(waited, Math::max);
+        }
+
+        if (!locked)
+        {
+            timeouts.increment();
+        }
+
+        return locked;
+    }
+
+    private ReentrantLock stripeOf(Object id)
+    {
+        var hash = id.hashCode();
+
+        // Mix the high bits into the low ones so that ids differing only in their high bits do not share a stripe
+
+        hash ^= (hash >>> 16);
+        hash *= 0x85ebca6b;
+        hash ^= (hash >>> 13);
+
+        return stripes[hash & (stripes.length - 1)];
+    }
+
+    public int getStripeCount()
+    {
+        return stripes.length;
+    }
+
+    public long getAcquisitions()
+    {
+        return acquisitions.sum();
+    }
+
+    /**
+     * @return number of writes that found their stripe held and had to wait
+     */
+
+    public long getContendedAcquisitions()
+    {
+        return contendedAcquisitions.sum();
+    }
+
+    /**
+     * @return number of writes that gave up waiting and went ahead without the lock
+     */
+
+    public long getTimeouts()
+    {
+        return timeouts.sum();
+    }
+
+    public long getTotalWaitMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.sum());
+    }
+
+    public long getLongestWaitMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(longestWaitNanos.get());
+    }
+
+    /**
+     * @return number of writes waiting for their stripe right now
+     */
+
+    public int getWaiting()
+    {
+        return waiting.get();
+    }
+}
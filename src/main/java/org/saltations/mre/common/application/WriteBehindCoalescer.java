@@ -0,0 +1,324 @@
+package org.saltations.mre.common.application;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.micronaut.core.annotation.NonNull;
+import org.saltations.mre.common.domain.Entity;
+
+/**
+ * Coalesces rapid successive updates of the same <em>entity</em> into a single write (write-behind).
+ * <p>
+ * The first update of an identifier opens a window. Updates of the same identifier arriving before the window closes
+ * replace the pending one, since each update carries the whole entity and only the last one matters. When the window
+ * closes the latest update is written once and every caller that contributed to it is completed with the outcome of
+ * that write.
+ * <p>
+ * Windows are timed by a single scheduler thread, but the writes run on a pool of writer threads so that one slow
+ * write does not hold up the writes of other identifiers.
+ * <p>
+ * <b>Ordering.</b> Updates of one identifier are applied in the order they arrived, last one wins, and the writes of
+ * one identifier never overlap: a window that closes while the previous write of its identifier is still running is
+ * written once that write finishes. There is no ordering between different identifiers, nor with writes that do not
+ * go through the coalescer.
+ * <p>
+ * <b>Crash safety.</b> Pending updates are only held in memory. An update is durable once its future completes
+ * normally and not before; if the process dies inside the window the update is lost and its caller never hears back.
+ * On an orderly shutdown {@link #close()} writes whatever is pending.
+ *
+ * @param <ID> Type of the <em>entity</em> identifier.
+ * @param <E> Class of the <em>entity</em>.
+ */
+
+public class WriteBehindCoalescer<ID, E extends Entity<ID>>
+{
+    /**
+     * Writes an update
+     *
+     * @param <E> Class of the <em>entity</em>.
+     */
+
+    @FunctionalInterface
+    public interface Writer<E>
+    {
+        E write(E update) throws Exception;
+    }
+
+    private static class Pending<E>
+    {
+        private E latest;
+
+        /**
+         * The window has closed but the previous write of the identifier was still running
+         */
+
+        private boolean due;
+
+        private final List<CompletableFuture<E>> callers = new ArrayList<>();
+
+        private Pending(E latest)
+        {
+            this.latest = latest;
+        }
+    }
+
+    private final Writer<E> writer;
+
+    private final long windowNanos;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final ExecutorService writers;
+
+    private final Object lock = new Object();
+
+    /**
+     * Updates waiting for their window to close, by identifier. Guarded by lock.
+     */
+
+    private final Map<ID, Pending<E>> pending = new LinkedHashMap<>();
+
+    /**
+     * Identifiers being written. Guarded by lock.
+     */
+
+    private final Set<ID> writing = new HashSet<>();
+
+    private final LongAdder submitted = new LongAdder();
+
+    private final LongAdder written = new LongAdder();
+
+    /**
+     * Primary constructor
+     *
+     * @param entityName Name of the entity, used to name the threads
+     * @param writer     Writes an update. Called from the writer threads, so should open its own transaction.
+     * @param window     How long the first update of an identifier waits for later ones to replace it
+     * @param writers    Number of writer threads, and so of writes (and connections) at once
+     */
+
+    public WriteBehindCoalescer(@NonNull String entityName, @NonNull Writer<E> writer, @NonNull Duration window, int writers)
+    {
+        if (writers < 1)
+        {
+            throw new IllegalArgumentException("Write-behind needs at least one writer thread");
+        }
+
+        this.writer = writer;
+        this.windowNanos = window.toNanos();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name(entityName + "-write-behind").daemon(true).factory());
+        this.writers = Executors.newFixedThreadPool(writers, Thread.ofPlatform().name(entityName + "-write-behind-", 0).daemon(true).factory());
+    }
+
+    /**
+     * Submits an update to be written when the window of its identifier closes.
+     *
+     * @param update entity with the updated values and the identifier of the entity to be updated. Not null.
+     *
+     * @return completes with the entity as written (possibly with the values of a later update of the same entity), or
+     * with the exception that the write failed with
+     */
+
+    public CompletableFuture<E> submit(@NonNull E update)
+    {
+        var id = update.getId();
+        var caller = new CompletableFuture<E>();
+
+        submitted.increment();
+
+        synchronized (lock)
+        {
+            var entry = pending.get(id);
+
+            if (entry == null)
+            {
+                try
+                {
+                    scheduler.schedule(() -> flush(id), windowNanos, TimeUnit.NANOSECONDS);
+                }
+                catch (RejectedExecutionException e)
+                {
+                    return CompletableFuture.failedFuture(new IllegalStateException("Write-behind has been closed", e));
+                }
+
+                entry = new Pending<>(update);
+                pending.put(id, entry);
+            }
+            else
+            {
+                entry.latest = update;
+            }
+
+            entry.callers.add(caller);
+        }
+
+        return caller;
+    }
+
+    /**
+     * Closes the window of the identifier, handing its update to a writer unless the identifier is still being
+     * written
+     */
+
+    private void flush(ID id)
+    {
+        Pending<E> entry;
+
+        synchronized (lock)
+        {
+            entry = pending.get(id);
+
+            if (entry == null)
+            {
+                return;
+            }
+
+            if (writing.contains(id))
+            {
+                entry.due = true;
+                return;
+            }
+
+            pending.remove(id);
+            writing.add(id);
+        }
+
+        dispatch(id, entry);
+    }
+
+    private void dispatch(ID id, Pending<E> entry)
+    {
+        try
+        {
+            writers.execute(() -> write(id, entry));
+        }
+        catch (RejectedExecutionException e)
+        {
+            // Closing, so the writer pool is no longer taking work
+
+            write(id, entry);
+        }
+    }
+
+    /**
+     * Writes the update and then hands over the next update of the identifier if its window closed meanwhile
+     */
+
+    private void write(ID id, Pending<E> entry)
+    {
+        write(entry);
+
+        Pending<E> next = null;
+
+        synchronized (lock)
+        {
+            writing.remove(id);
+
+            var waiting = pending.get(id);
+
+            if (waiting != null && waiting.due)
+            {
+                next = pending.remove(id);
+                writing.add(id);
+            }
+        }
+
+        if (next != null)
+        {
+            dispatch(id, next);
+        }
+    }
+
+    private void write(Pending<E> entry)
+    {
+        written.increment();
+
+        try
+        {
+            var result = writer.write(entry.latest);
+
+            entry.callers.forEach(caller -> caller.complete(result));
+        }
+        catch (Exception e)
+        {
+            entry.callers.forEach(caller -> caller.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Stops accepting updates and writes the pending ones, waiting for their windows to close.
+     */
+
+    public void close()
+    {
+        scheduler.shutdown();
+
+        try
+        {
+            scheduler.awaitTermination(windowNanos + TimeUnit.SECONDS.toNanos(30), TimeUnit.NANOSECONDS);
+
+            // An update waiting for a running write is written by the thread of that write once the pool is shut down
+
+            writers.shutdown();
+            writers.awaitTermination(30, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        // Only left if the writes did not finish in time
+
+        List<Pending<E>> remaining;
+
+        synchronized (lock)
+        {
+            remaining = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+
+        remaining.forEach(this::write);
+    }
+
+    /**
+     * @return number of updates submitted
+     */
+
+    public long getSubmitted()
+    {
+        return submitted.sum();
+    }
+
+    /**
+     * @return number of writes made for the submitted updates
+     */
+
+    public long getWritten()
+    {
+        return written.sum();
+    }
+
+    /**
+     * @return number of identifiers with an update waiting for its window to close
+     */
+
+    public int getPending()
+    {
+        synchronized (lock)
+        {
+            return pending.size();
+        }
+    }
+}
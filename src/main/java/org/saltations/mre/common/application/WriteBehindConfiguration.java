@@ -0,0 +1,40 @@
+package org.saltations.mre.common.application;
+
+import java.time.Duration;
+
+import io.micronaut.context.annotation.EachProperty;
+import io.micronaut.context.annotation.Parameter;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Timing and sizing of the {@link WriteBehindCoalescer} of an entity service, configured under
+ * {@code write-behind.<name>}.
+ * <p>
+ * A service without a configuration writes every update straight away.
+ */
+
+@Getter
+@Setter
+@EachProperty("write-behind")
+public class WriteBehindConfiguration
+{
+    private final String name;
+
+    /**
+     * How long the first update of an entity waits for later ones to replace it
+     */
+
+    private Duration window = Duration.ofMillis(50);
+
+    /**
+     * Number of threads (and so connections) writing at once
+     */
+
+    private int writers = 2;
+
+    public WriteBehindConfiguration(@Parameter String name)
+    {
+        this.name = name;
+    }
+}
@@ -0,0 +1,33 @@
+package org.saltations.mre.common.application;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * Result of a replace or modify of an <em>entity</em>. Says whether anything was actually written to the database.
+ * <p>
+ * Nothing is written when the incoming content is identical to the stored content. In that case the entity is the
+ * stored one, untouched.
+ *
+ * @param <E> Class of the <em>entity</em>.
+ */
+
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class WriteResult<E>
+{
+    E entity;
+
+    boolean written;
+
+    public static <E> WriteResult<E> written(E entity)
+    {
+        return new WriteResult<>(entity, true);
+    }
+
+    public static <E> WriteResult<E> unwritten(E entity)
+    {
+        return new WriteResult<>(entity, false);
+    }
+}
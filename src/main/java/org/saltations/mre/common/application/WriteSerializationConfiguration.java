@@ -0,0 +1,39 @@
+package org.saltations.mre.common.application;
+
+import java.time.Duration;
+
+import io.micronaut.context.annotation.EachProperty;
+import io.micronaut.context.annotation.Parameter;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Sizing of the {@link StripedWriteLock} of an entity service, configured under {@code write-serialization.<name>}.
+ * <p>
+ * A service without a configuration does not serialize writes in-process.
+ */
+
+@Getter
+@Setter
+@EachProperty("write-serialization")
+public class WriteSerializationConfiguration
+{
+    private final String name;
+
+    /**
+     * Number of stripes. More stripes means fewer unrelated writes waiting on each other.
+     */
+
+    private int stripes = 256;
+
+    /**
+     * Longest a write waits for its stripe before going ahead without it
+     */
+
+    private Duration maxWait = Duration.ofSeconds(2);
+
+    public WriteSerializationConfiguration(@Parameter String name)
+    {
+        this.name = name;
+    }
+}
@@ -1,5 +1,7 @@
 package org.saltations.mre.common.domain;
 
+import java.util.List;
+
 import org.mapstruct.MappingTarget;
 
 /**
@@ -22,6 +24,17 @@ public interface EntityMapper<C, E>
     @SuppressWarnings("EmptyMethod")
     E createEntity(C proto);
 
+    /**
+     * Maps a list of (Core) prototypes to a list of Entities.
+     *
+     * @param protos prototypes with core attributes to create Entities.
+     *
+     * @return List of valid Entities in the same order as the prototypes
+     */
+
+    @SuppressWarnings("EmptyMethod")
+    List<E> createEntities(List<C> protos);
+
     /**
      * Patches the entity with non-null values from the patch object
      *
@@ -0,0 +1,12 @@
+package org.saltations.mre.common.domain;
+
+/**
+ * Minimum contract for an entity with an optimistic concurrency version, incremented on every update.
+ */
+
+public interface Versioned
+{
+    Long getVersion();
+
+    void setVersion(Long version);
+}
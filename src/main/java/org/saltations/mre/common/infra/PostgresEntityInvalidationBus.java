@@ -0,0 +1,275 @@
+package org.saltations.mre.common.infra;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import javax.sql.DataSource;
+
+import io.micronaut.context.annotation.Property;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.saltations.mre.common.application.EntityInvalidationBus;
+
+/**
+ * {@link EntityInvalidationBus} over Postgres {@code LISTEN/NOTIFY}.
+ * <p>
+ * Messages are sent with {@code pg_notify} on the caller's (transactional) connection, so Postgres only delivers them
+ * when the transaction commits. Each message is {@code <entity name>:<id>[,<id>...]}, split so that no payload comes
+ * near the 8000 byte limit.
+ * <p>
+ * Messages are received on a dedicated connection opened outside the connection pool, polled by a single daemon
+ * thread. Subscribers are told that messages may have been missed whenever the connection starts listening, the first
+ * time included (nothing sent before that was seen), and again every time the thread has to reconnect.
+ */
+
+@Slf4j
+@Singleton
+@Requires(property = "entity-invalidation.enabled", notEquals = "false")
+public class PostgresEntityInvalidationBus implements EntityInvalidationBus
+{
+    public static final String CHANNEL = "entity_invalidation";
+
+    private static final int MAX_PAYLOAD_LENGTH = 7000;
+
+    private static final int POLL_MILLIS = 500;
+
+    private static final long RECONNECT_MILLIS = 5000;
+
+    private final DataSource dataSource;
+
+    private final String url;
+
+    private final String username;
+
+    private final String password;
+
+    private final Map<String, List<Subscriber>> subscribersByEntityName = new ConcurrentHashMap<>();
+
+    private volatile Thread listener;
+
+    private volatile boolean running = true;
+
+    private boolean listening;
+
+    private record Subscriber(Consumer<String> onInvalidation, Runnable onMissedInvalidations)
+    {
+    }
+
+    @Inject
+    public PostgresEntityInvalidationBus(DataSource dataSource,
+                                         @Property(name = "datasources.default.url") String url,
+                                         @Nullable @Property(name = "datasources.default.username") String username,
+                                         @Nullable @Property(name = "datasources.default.password") String password)
+    {
+        this.dataSource = dataSource;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+    }
+
+    @Override
+    public void publish(@NonNull String entityName, @NonNull Collection<?> ids)
+    {
+        if (ids.isEmpty())
+        {
+            return;
+        }
+
+        var prefix = entityName + ":";
+        var payload = new StringBuilder(prefix);
+
+        try (var connection = dataSource.getConnection();
+             var statement = connection.prepareStatement("SELECT pg_notify(?, ?)"))
+        {
+            for (Object id : ids)
+            {
+                var idText = id.toString();
+
+                if (payload.length() > prefix.length() && payload.length() + idText.length() + 1 > MAX_PAYLOAD_LENGTH)
+                {
+                    notify(statement, payload.toString());
+                    payload.setLength(prefix.length());
+                }
+
+                if (payload.length() > prefix.length())
+                {
+                    payload.append(',');
+                }
+
+                payload.append(idText);
+            }
+
+            notify(statement, payload.toString());
+        }
+        catch (SQLException e)
+        {
+            // Other nodes keep serving what they cached until it expires or is next invalidated
+
+            log.warn("Could not publish invalidation of {} {}", entityName, ids, e);
+        }
+    }
+
+    private static void notify(PreparedStatement statement, String payload) throws SQLException
+    {
+        statement.setString(1, CHANNEL);
+        statement.setString(2, payload);
+        statement.execute();
+    }
+
+    @Override
+    public void subscribe(@NonNull String entityName, @NonNull Consumer<String> onInvalidation, @NonNull Runnable onMissedInvalidations)
+    {
+        var subscriber = new Subscriber(onInvalidation, onMissedInvalidations);
+
+        synchronized (this)
+        {
+            subscribersByEntityName.computeIfAbsent(entityName, name -> new CopyOnWriteArrayList<>()).add(subscriber);
+
+            if (listening)
+            {
+                subscriber.onMissedInvalidations().run();
+            }
+        }
+
+        startListening();
+    }
+
+    /**
+     * Records whether the connection is listening and, once it is, tells every subscriber that messages sent before
+     * may have been missed. Synchronized with {@link #subscribe} so a subscriber is told exactly once per connection.
+     */
+
+    private synchronized void setListening(boolean listening)
+    {
+        this.listening = listening;
+
+        if (listening)
+        {
+            subscribersByEntityName.values().forEach(subscribers -> subscribers.forEach(subscriber -> subscriber.onMissedInvalidations().run()));
+        }
+    }
+
+    private synchronized void startListening()
+    {
+        if (listener == null)
+        {
+            listener = new Thread(this::listen, "entity-invalidation-listener");
+            listener.setDaemon(true);
+            listener.start();
+        }
+    }
+
+    private void listen()
+    {
+        while (running)
+        {
+            try (Connection connection = DriverManager.getConnection(url, username, password))
+            {
+                try (var statement = connection.createStatement())
+                {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+
+                setListening(true);
+
+                var pgConnection = connection.unwrap(PGConnection.class);
+
+                while (running)
+                {
+                    var notifications = pgConnection.getNotifications(POLL_MILLIS);
+
+                    if (notifications != null)
+                    {
+                        for (PGNotification notification : notifications)
+                        {
+                            dispatch(notification.getParameter());
+                        }
+                    }
+                }
+            }
+            catch (SQLException e)
+            {
+                setListening(false);
+
+                if (running)
+                {
+                    log.warn("Lost the entity invalidation listener connection. Reconnecting in {} ms", RECONNECT_MILLIS, e);
+                    pause();
+                }
+            }
+        }
+    }
+
+    private void dispatch(String payload)
+    {
+        var separator = payload.indexOf(':');
+
+        if (separator < 0)
+        {
+            return;
+        }
+
+        var subscribers = subscribersByEntityName.get(payload.substring(0, separator));
+
+        if (subscribers == null)
+        {
+            return;
+        }
+
+        for (String id : payload.substring(separator + 1).split(","))
+        {
+            for (var subscriber : subscribers)
+            {
+                try
+                {
+                    subscriber.onInvalidation().accept(id);
+                }
+                catch (RuntimeException e)
+                {
+                    log.warn("Could not apply invalidation {}", payload, e);
+                }
+            }
+        }
+    }
+
+    private void pause()
+    {
+        try
+        {
+            Thread.sleep(RECONNECT_MILLIS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    @PreDestroy
+    public void close()
+    {
+        running = false;
+
+        var current = listener;
+
+        if (current != null)
+        {
+            current.interrupt();
+        }
+    }
+}
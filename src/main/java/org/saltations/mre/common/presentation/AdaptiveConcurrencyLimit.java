@@ -0,0 +1,193 @@
+package org.saltations.mre.common.presentation;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limit on the number of requests in flight that adapts to the measured latency (a gradient limit, after the
+ * Netflix concurrency-limits Gradient2 algorithm).
+ * <p>
+ * The latency of each request is compared with a slow moving average of the latencies. While they are about the same
+ * the limit grows by roughly its square root each time, so there is always some headroom for a burst. When requests
+ * start taking longer than the average, because they queue for threads or connections, the limit shrinks in
+ * proportion. Requests over the limit are rejected straight away instead of queueing, which keeps the latency of the
+ * accepted ones bounded.
+ */
+
+public class AdaptiveConcurrencyLimit
+{
+    /**
+     * Weight of a sample in the long term average latency, an exponential moving average over about 600 samples
+     */
+
+    private static final double LONG_TERM_WEIGHT = 2.0 / 601;
+
+    /**
+     * How much slower than the long term average a request may be before the limit shrinks
+     */
+
+    private static final double TOLERANCE = 1.5;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double smoothing;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final Object lock = new Object();
+
+    /**
+     * Current limit. Written holding lock, read without it.
+     */
+
+    private volatile double limit;
+
+    /**
+     * Long term average latency. Guarded by lock.
+     */
+
+    private double longTermNanos;
+
+    private final LongAdder accepted = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Primary constructor
+     *
+     * @param initialLimit Limit until there are latency samples
+     * @param minLimit     Lowest the limit goes, however slow the requests
+     * @param maxLimit     Highest the limit goes, however fast the requests
+     * @param smoothing    Fraction of each new limit that is applied, between 0 (exclusive) and 1
+     */
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double smoothing)
+    {
+        if (minLimit < 1 || maxLimit < minLimit)
+        {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= max");
+        }
+
+        if (smoothing <= 0 || smoothing > 1)
+        {
+            throw new IllegalArgumentException("Smoothing must be greater than 0 and at most 1");
+        }
+
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Takes a place for a request if there is one under the limit
+     *
+     * @return {@code true} if the request may go ahead and must {@link #release} its place, {@code false} if it must
+     * be rejected
+     */
+
+    public boolean tryAcquire()
+    {
+        while (true)
+        {
+            var current = inFlight.get();
+
+            if (current >= getLimit())
+            {
+                rejected.increment();
+                return false;
+            }
+
+            if (inFlight.compareAndSet(current, current + 1))
+            {
+                accepted.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives back the place of a request that has finished
+     *
+     * @param latencyNanos how long the request took
+     * @param sample       whether the latency is a fair sample. Cancelled requests are not.
+     */
+
+    public void release(long latencyNanos, boolean sample)
+    {
+        var inFlightWithThis = inFlight.getAndDecrement();
+
+        if (sample && latencyNanos > 0)
+        {
+            update(latencyNanos, inFlightWithThis);
+        }
+    }
+
+    private void update(long latencyNanos, int inFlightWithSample)
+    {
+        synchronized (lock)
+        {
+            longTermNanos = longTermNanos == 0 ? latencyNanos : longTermNanos * (1 - LONG_TERM_WEIGHT) + latencyNanos * LONG_TERM_WEIGHT;
+
+            // After a spike, let the average come back down quickly so the limit does not stay high for too long
+
+            if (longTermNanos / latencyNanos > 2)
+            {
+                longTermNanos *= 0.95;
+            }
+
+            var current = limit;
+            var gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longTermNanos / latencyNanos));
+            var proposed = current * gradient + Math.sqrt(current);
+
+            // Do not grow the limit while less than half of it is used, there is no evidence that more would be fine
+
+            if (proposed > current && inFlightWithSample < current / 2)
+            {
+                return;
+            }
+
+            var smoothed = current * (1 - smoothing) + proposed * smoothing;
+
+            limit = Math.max(minLimit, Math.min(maxLimit, smoothed));
+        }
+    }
+
+    /**
+     * @return the current limit on requests in flight
+     */
+
+    public int getLimit()
+    {
+        return (int) limit;
+    }
+
+    /**
+     * @return number of requests in flight
+     */
+
+    public int getInFlight()
+    {
+        return inFlight.get();
+    }
+
+    /**
+     * @return number of requests let through
+     */
+
+    public long getAccepted()
+    {
+        return accepted.sum();
+    }
+
+    /**
+     * @return number of requests rejected for being over the limit
+     */
+
+    public long getRejected()
+    {
+        return rejected.sum();
+    }
+}
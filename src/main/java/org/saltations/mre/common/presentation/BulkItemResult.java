@@ -0,0 +1,50 @@
+package org.saltations.mre.common.presentation;
+
+import java.util.List;
+
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.serde.annotation.Serdeable;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * Result for a single item of a bulk request.
+ * <p>
+ * Identifies the item by its position in the request and carries either the resulting resource or the reasons the
+ * item was rejected.
+ *
+ * @param <T> Class of the resulting resource
+ */
+
+@Value
+@Serdeable.Serializable
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Schema(name = "BulkItemResult", description = "Result for a single item of a bulk request")
+public class BulkItemResult<T>
+{
+    @Schema(description = "Position of the item in the request, starting at 0", example = "0")
+    int index;
+
+    @Schema(description = "HTTP status code for the item", example = "201")
+    int status;
+
+    @Nullable
+    @Schema(description = "The resulting resource if the item succeeded")
+    T resource;
+
+    @Nullable
+    @Schema(description = "Reasons the item was rejected if it did not succeed")
+    List<String> errors;
+
+    public static <T> BulkItemResult<T> succeeded(int index, int status, T resource)
+    {
+        return new BulkItemResult<>(index, status, resource, null);
+    }
+
+    public static <T> BulkItemResult<T> rejected(int index, int status, List<String> errors)
+    {
+        return new BulkItemResult<>(index, status, null, errors);
+    }
+}
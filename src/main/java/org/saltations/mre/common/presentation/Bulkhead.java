@@ -0,0 +1,119 @@
+package org.saltations.mre.common.presentation;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import io.micronaut.core.annotation.NonNull;
+
+/**
+ * Isolates the blocking work of a feature slice from the other slices.
+ * <p>
+ * The slice gets its own bounded thread pools, one lane for reads and one for writes, so that a burst of slow writes
+ * (a bulk job, say) neither takes the threads of the slice's reads nor any thread or connection of another slice.
+ * A full lane rejects work straight away rather than queueing it without bound.
+ * <p>
+ * When the crud endpoints execute on virtual threads ({@code crud.execution=virtual}) the lanes do too: each lane is
+ * a {@link VirtualThreadLane} whose semaphores bound the running and waiting work the same way, so the lane sizes
+ * still partition the connection pool.
+ */
+
+public class Bulkhead
+{
+    private final String name;
+
+    private final ExecutorService reads;
+
+    private final ExecutorService writes;
+
+    /**
+     * Primary constructor
+     *
+     * @param configuration sizes of the lanes
+     * @param execution     whether the lanes run on platform or virtual threads
+     */
+
+    public Bulkhead(@NonNull BulkheadConfiguration configuration, @NonNull CrudExecutorFactory.ExecutionMode execution)
+    {
+        this.name = configuration.getName();
+        this.reads = lane(name + "-read-", configuration.getReadThreads(), configuration.getQueueSize(), execution);
+        this.writes = lane(name + "-write-", configuration.getWriteThreads(), configuration.getQueueSize(), execution);
+    }
+
+    private static ExecutorService lane(String threadPrefix, int threads, int queueSize, CrudExecutorFactory.ExecutionMode execution)
+    {
+        if (threads < 1 || queueSize < 1)
+        {
+            throw new IllegalArgumentException("Lanes need at least one thread and room to queue one request");
+        }
+
+        return switch (execution)
+        {
+            case VIRTUAL -> new VirtualThreadLane(threadPrefix, threads, queueSize);
+            case IO -> new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize),
+                    Thread.ofPlatform().name(threadPrefix, 0).daemon(true).factory(),
+                    new ThreadPoolExecutor.AbortPolicy());
+        };
+    }
+
+    /**
+     * @param lane one of the lanes of a bulkhead
+     *
+     * @return its size and how much of it is running, waiting and done
+     */
+
+    public static Map<String, Number> statisticsOf(ExecutorService lane)
+    {
+        if (lane instanceof VirtualThreadLane virtual)
+        {
+            return Map.of(
+                    "threads", virtual.getThreads(),
+                    "active", virtual.getActiveCount(),
+                    "queued", virtual.getQueuedCount(),
+                    "completed", virtual.getCompletedTaskCount());
+        }
+
+        var pool = (ThreadPoolExecutor) lane;
+
+        return Map.of(
+                "threads", pool.getMaximumPoolSize(),
+                "active", pool.getActiveCount(),
+                "queued", pool.getQueue().size(),
+                "completed", pool.getCompletedTaskCount());
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * @return the lane that reads run on
+     */
+
+    public ExecutorService getReads()
+    {
+        return reads;
+    }
+
+    /**
+     * @return the lane that writes run on
+     */
+
+    public ExecutorService getWrites()
+    {
+        return writes;
+    }
+
+    /**
+     * Stops taking work and lets the work already taken finish
+     */
+
+    public void shutdown()
+    {
+        reads.shutdown();
+        writes.shutdown();
+    }
+}
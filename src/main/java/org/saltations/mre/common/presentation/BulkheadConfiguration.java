@@ -0,0 +1,54 @@
+package org.saltations.mre.common.presentation;
+
+import io.micronaut.context.annotation.EachProperty;
+import io.micronaut.context.annotation.Parameter;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Sizing of the {@link Bulkhead} of a feature slice, configured under {@code bulkheads.<name>}.
+ * <p>
+ * Every lane thread holds at most one database connection at a time, so the lane sizes of all the slices together are
+ * how the connection pool is partitioned between them. Keep their sum below the maximum size of the pool.
+ * A controller without a configuration uses the shared crud executor.
+ */
+
+@Getter
+@Setter
+@EachProperty("bulkheads")
+public class BulkheadConfiguration
+{
+    private final String name;
+
+    /**
+     * Number of threads (and so connections) for reads
+     */
+
+    private int readThreads = 8;
+
+    /**
+     * Number of threads (and so connections) for writes
+     */
+
+    private int writeThreads = 4;
+
+    /**
+     * Number of requests that may wait for a thread in each lane. Requests past that are rejected.
+     */
+
+    private int queueSize = 100;
+
+    public BulkheadConfiguration(@Parameter String name)
+    {
+        this.name = name;
+    }
+
+    /**
+     * @return number of connections the slice can hold at once
+     */
+
+    public int getConnections()
+    {
+        return readThreads + writeThreads;
+    }
+}
@@ -0,0 +1,48 @@
+package org.saltations.mre.common.presentation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import io.micronaut.management.endpoint.annotation.Endpoint;
+import io.micronaut.management.endpoint.annotation.Read;
+
+/**
+ * Management endpoint ({@code /bulkheads}) with the saturation of the read and write lanes of each feature slice that
+ * has a bulkhead.
+ */
+
+@Endpoint(id = "bulkheads")
+public class BulkheadEndpoint
+{
+    private final List<RestCrudEntityControllerFoundation<?, ?, ?, ?, ?, ?, ?>> controllers;
+
+    public BulkheadEndpoint(List<RestCrudEntityControllerFoundation<?, ?, ?, ?, ?, ?, ?>> controllers)
+    {
+        this.controllers = controllers;
+    }
+
+    /**
+     * @return statistics by slice name and lane
+     */
+
+    @Read
+    public Map<String, Map<String, Map<String, Number>>> statistics()
+    {
+        var statistics = new TreeMap<String, Map<String, Map<String, Number>>>();
+
+        for (var controller : controllers)
+        {
+            var bulkhead = controller.getBulkhead();
+
+            if (bulkhead != null)
+            {
+                statistics.put(bulkhead.getName(), Map.of(
+                        "reads", Bulkhead.statisticsOf(bulkhead.getReads()),
+                        "writes", Bulkhead.statisticsOf(bulkhead.getWrites())));
+            }
+        }
+
+        return statistics;
+    }
+}
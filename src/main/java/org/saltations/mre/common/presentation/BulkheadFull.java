@@ -0,0 +1,27 @@
+package org.saltations.mre.common.presentation;
+
+import java.text.MessageFormat;
+
+import io.micronaut.http.HttpStatus;
+import io.micronaut.problem.HttpStatusType;
+import io.micronaut.serde.annotation.Serdeable;
+import org.saltations.mre.common.core.errors.DomainProblemBase;
+
+/**
+ * Denotes a request for a given type of entity that was turned away because its lane of the bulkhead was full
+ */
+
+@Serdeable
+public class BulkheadFull extends DomainProblemBase
+{
+    private static final String PROBLEM_TYPE = "bulkhead-full";
+
+    private static final String TITLE_TEMPLATE = "Too many {0} requests in progress";
+
+    public BulkheadFull(Throwable e, String resourceTypeName, String lane)
+    {
+        super(e, PROBLEM_TYPE, MessageFormat.format(TITLE_TEMPLATE, resourceTypeName),"The {1} lane for {0} is full. Try again later.", resourceTypeName, lane);
+        statusType(new HttpStatusType(HttpStatus.SERVICE_UNAVAILABLE));
+    }
+
+}
@@ -0,0 +1,42 @@
+package org.saltations.mre.common.presentation;
+
+import java.util.List;
+
+import io.micronaut.context.annotation.Value;
+import io.micronaut.context.event.StartupEvent;
+import io.micronaut.runtime.event.annotation.EventListener;
+import jakarta.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Warns at startup when the bulkheads together can hold more connections than the pool has, in which case a
+ * saturated slice can still take connections that another slice needs.
+ */
+
+@Slf4j
+@Singleton
+public class BulkheadPoolCheck
+{
+    private final List<BulkheadConfiguration> bulkheads;
+
+    private final int maximumPoolSize;
+
+    public BulkheadPoolCheck(List<BulkheadConfiguration> bulkheads,
+                             @Value("${datasources.default.maximum-pool-size:10}") int maximumPoolSize)
+    {
+        this.bulkheads = bulkheads;
+        this.maximumPoolSize = maximumPoolSize;
+    }
+
+    @EventListener
+    void onStartup(StartupEvent event)
+    {
+        var connections = bulkheads.stream().mapToInt(BulkheadConfiguration::getConnections).sum();
+
+        if (connections > maximumPoolSize)
+        {
+            log.warn("Bulkheads can hold {} connections but the pool only has {}, so slices are not isolated from each other",
+                    connections, maximumPoolSize);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.saltations.mre.common.presentation;
+
+import java.time.Duration;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Settings of the adaptive limits of the {@link ConcurrencyLimitFilter}, configured under {@code concurrency-limits}.
+ * Every controller gets its own limit with these settings.
+ */
+
+@Getter
+@Setter
+@ConfigurationProperties("concurrency-limits")
+public class ConcurrencyLimitConfiguration
+{
+    /**
+     * Limit on requests in flight until there are latency samples
+     */
+
+    private int initialLimit = 20;
+
+    /**
+     * Lowest the limit goes, however slow the requests
+     */
+
+    private int minLimit = 4;
+
+    /**
+     * Highest the limit goes, however fast the requests
+     */
+
+    private int maxLimit = 500;
+
+    /**
+     * Fraction of each newly calculated limit that is applied
+     */
+
+    private double smoothing = 0.2;
+
+    /**
+     * How long a rejected client is asked to wait before trying again
+     */
+
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
@@ -0,0 +1,44 @@
+package org.saltations.mre.common.presentation;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.management.endpoint.annotation.Endpoint;
+import io.micronaut.management.endpoint.annotation.Read;
+
+/**
+ * Management endpoint ({@code /concurrency-limits}) with the current adaptive limit, the requests in flight and the
+ * accepted and rejected requests of each controller behind the {@link ConcurrencyLimitFilter}.
+ */
+
+@Endpoint(id = "concurrency-limits")
+@Requires(property = "concurrency-limits.enabled", value = StringUtils.TRUE)
+public class ConcurrencyLimitEndpoint
+{
+    private final ConcurrencyLimitFilter filter;
+
+    public ConcurrencyLimitEndpoint(ConcurrencyLimitFilter filter)
+    {
+        this.filter = filter;
+    }
+
+    /**
+     * @return statistics by controller name
+     */
+
+    @Read
+    public Map<String, Map<String, Number>> statistics()
+    {
+        var statistics = new TreeMap<String, Map<String, Number>>();
+
+        filter.getLimitsByController().forEach((controller, limit) -> statistics.put(controller, Map.of(
+                "limit", limit.getLimit(),
+                "in-flight", limit.getInFlight(),
+                "accepted", limit.getAccepted(),
+                "rejected", limit.getRejected())));
+
+        return statistics;
+    }
+}
@@ -0,0 +1,104 @@
+package org.saltations.mre.common.presentation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.async.publisher.Publishers;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.MutableHttpResponse;
+import io.micronaut.http.annotation.Filter;
+import io.micronaut.http.filter.HttpServerFilter;
+import io.micronaut.http.filter.ServerFilterChain;
+import io.micronaut.http.filter.ServerFilterPhase;
+import io.micronaut.web.router.RouteAttributes;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Sheds load in front of the {@link ConcurrencyLimited} (i.e. {@link StdController}) controllers.
+ * <p>
+ * Each controller has its own {@link AdaptiveConcurrencyLimit}. A request over the limit of its controller gets an
+ * immediate {@code 503 Service Unavailable} problem with a {@code Retry-After} header instead of queueing for a
+ * thread or a connection, so the latency of the requests that are accepted stays bounded when Postgres slows down.
+ * Enabled with {@code concurrency-limits.enabled}.
+ */
+
+@Slf4j
+@ConcurrencyLimited
+@Filter(Filter.MATCH_ALL_PATTERN)
+@Requires(property = "concurrency-limits.enabled", value = StringUtils.TRUE)
+public class ConcurrencyLimitFilter implements HttpServerFilter
+{
+    private final ConcurrencyLimitConfiguration configuration;
+
+    private final Map<String, AdaptiveConcurrencyLimit> limitsByController = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimitFilter(ConcurrencyLimitConfiguration configuration)
+    {
+        this.configuration = configuration;
+    }
+
+    @Override
+    public int getOrder()
+    {
+        // Before anything else does work for a request that may be rejected
+
+        return ServerFilterPhase.FIRST.order();
+    }
+
+    @Override
+    public Publisher<MutableHttpResponse<?>> doFilter(HttpRequest<?> request, ServerFilterChain chain)
+    {
+        var controller = RouteAttributes.getRouteInfo(request)
+                .map(route -> route.getDeclaringType().getSimpleName())
+                .orElse("unknown");
+
+        var limit = limitsByController.computeIfAbsent(controller, name -> new AdaptiveConcurrencyLimit(
+                configuration.getInitialLimit(), configuration.getMinLimit(), configuration.getMaxLimit(), configuration.getSmoothing()));
+
+        if (!limit.tryAcquire())
+        {
+            log.debug("Rejected {} {}, {} is at its limit of {}", request.getMethod(), request.getPath(), controller, limit.getLimit());
+
+            return Publishers.just(overloaded(controller));
+        }
+
+        var start = System.nanoTime();
+
+        return Flux.from(chain.proceed(request))
+                   .doFinally(signal -> limit.release(System.nanoTime() - start, signal == SignalType.ON_COMPLETE));
+    }
+
+    private MutableHttpResponse<?> overloaded(String controller)
+    {
+        var problem = new LinkedHashMap<String, Object>();
+
+        problem.put("type", "https://localhost/probs/concurrency-limit-exceeded");
+        problem.put("title", "Concurrency limit exceeded");
+        problem.put("status", HttpStatus.SERVICE_UNAVAILABLE.getCode());
+        problem.put("detail", "Too many requests are in progress for " + controller + ". Try again later.");
+
+        return HttpResponse.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, configuration.getRetryAfter().toSeconds())))
+                .contentType(MediaType.APPLICATION_JSON_PROBLEM_TYPE)
+                .body(problem);
+    }
+
+    /**
+     * @return the limits by controller name. Controllers appear once they have had a request.
+     */
+
+    public Map<String, AdaptiveConcurrencyLimit> getLimitsByController()
+    {
+        return limitsByController;
+    }
+}
@@ -0,0 +1,21 @@
+package org.saltations.mre.common.presentation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import io.micronaut.http.annotation.FilterMatcher;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Marks the controllers whose requests go through the {@link ConcurrencyLimitFilter}. Carried by {@link StdController}.
+ */
+
+@FilterMatcher
+@Documented
+@Retention(RUNTIME)
+@Target({ElementType.TYPE, ElementType.ANNOTATION_TYPE})
+public @interface ConcurrencyLimited {
+}
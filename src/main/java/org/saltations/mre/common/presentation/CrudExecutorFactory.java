@@ -0,0 +1,63 @@
+package org.saltations.mre.common.presentation;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import io.micronaut.context.BeanProvider;
+import io.micronaut.context.annotation.Factory;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.scheduling.TaskExecutors;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Provides the executor that {@link StdController} endpoints run on, selected with {@code crud.execution}.
+ * <ul>
+ *     <li>{@code io} (default) runs them on the shared, bounded platform thread pool of Micronaut</li>
+ *     <li>{@code virtual} runs each request on its own JDK 21 virtual thread, so the number of requests in flight is
+ *     bounded by the connection pool rather than by the number of threads</li>
+ * </ul>
+ * <p>
+ * Controllers with a {@link Bulkhead} run their blocking work on its lanes instead, which follow the same setting.
+ * <p>
+ * Virtual threads only pay off when nothing on the request path blocks while holding a monitor, which would pin the
+ * virtual thread to its carrier. The Postgres driver and Hikari guard their blocking calls with
+ * {@code java.util.concurrent} locks; run with {@code -Djdk.tracePinnedThreads=short}, or record the
+ * {@code jdk.VirtualThreadPinned} JFR event, to check the rest of the path.
+ */
+
+@Slf4j
+@Factory
+public class CrudExecutorFactory
+{
+    /**
+     * Name of the executor that {@link StdController} endpoints run on
+     */
+
+    public static final String CRUD = "crud";
+
+    /**
+     * How {@link StdController} endpoints are executed
+     */
+
+    public enum ExecutionMode
+    {
+        IO,
+        VIRTUAL
+    }
+
+    @Singleton
+    @Named(CRUD)
+    ExecutorService crudExecutor(@Value("${crud.execution:io}") ExecutionMode mode,
+                                 @Named(TaskExecutors.IO) BeanProvider<ExecutorService> io)
+    {
+        log.info("CRUD endpoints execute on {} threads", mode.name().toLowerCase());
+
+        return switch (mode)
+        {
+            case VIRTUAL -> Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("crud-", 0).factory());
+            case IO -> io.get();
+        };
+    }
+}
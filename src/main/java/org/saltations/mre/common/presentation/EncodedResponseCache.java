@@ -0,0 +1,235 @@
+package org.saltations.mre.common.presentation;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micronaut.buffer.netty.NettyByteBufferFactory;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.io.buffer.ByteBuffer;
+import io.micronaut.core.io.buffer.ReferenceCounted;
+import org.saltations.mre.common.application.EntityInvalidationListener;
+
+/**
+ * Size bounded cache of already encoded (JSON) responses, and their validators, by <em>entity</em> identifier. The
+ * encoded responses are held off heap in pooled direct buffers.
+ * <p>
+ * A hit hands out a retained slice of the cached buffer. The slice is written to the channel and released by the
+ * server without the entity being serialized again and without a copy on the heap. Entries are held in a Caffeine
+ * cache weighed by their size, so hits from the event loops do not contend on a common lock, and the cache releases
+ * the buffer of an entry once it is evicted, replaced or invalidated. Responses larger than the whole cache are not
+ * cached.
+ *
+ * @param <ID> Type of the <em>entity</em> identifier.
+ */
+
+public class EncodedResponseCache<ID> implements EntityInvalidationListener<ID>
+{
+    /**
+     * Encoded response ready to be sent
+     *
+     * @param body       encoded entity. Released by the server once written.
+     * @param validators validators of the encoded entity. Null if it has none.
+     */
+
+    public record Encoded(ByteBuffer<?> body, @Nullable EntityValidators validators)
+    {
+    }
+
+    private record Entry(ByteBuffer<?> buffer, int length, @Nullable EntityValidators validators)
+    {
+    }
+
+    private final long maxBytes;
+
+    private final Cache<ID, Entry> entries;
+
+    /**
+     * Bumped on every invalidation, so that a response encoded from an entity read before an invalidation is not cached
+     */
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * Primary constructor
+     *
+     * @param maxBytes Largest total size of the encoded responses held
+     */
+
+    public EncodedResponseCache(long maxBytes)
+    {
+        this.maxBytes = maxBytes;
+
+        // Buffers are released on the thread that removed the entry, straight after it was removed
+
+        this.entries = Caffeine.newBuilder()
+                               .maximumWeight(maxBytes)
+                               .weigher((ID id, Entry entry) -> entry.length())
+                               .executor(Runnable::run)
+                               .removalListener((ID id, Entry entry, RemovalCause cause) -> discard(entry, cause))
+                               .build();
+    }
+
+    /**
+     * Finds the encoded response for the identifier.
+     *
+     * @param id identifier of the entity. Not null.
+     *
+     * @return the encoded response or {@code null} if it is not cached. The caller owns (must send or release) the body.
+     */
+
+    @Nullable
+    public Encoded find(@NonNull ID id)
+    {
+        var shared = new AtomicReference<Encoded>();
+
+        // Retained while the entry is still mapped, so the cache cannot release the buffer in between
+
+        entries.asMap().computeIfPresent(id, (key, entry) -> {
+            shared.set(share(entry));
+            return entry;
+        });
+
+        if (shared.get() == null)
+        {
+            missCount.increment();
+            return null;
+        }
+
+        hitCount.increment();
+
+        return shared.get();
+    }
+
+    /**
+     * Finds the validators of the cached response for the identifier, without handing out the body. Used to answer
+     * conditional requests.
+     *
+     * @param id identifier of the entity. Not null.
+     *
+     * @return the validators or {@code null} if there is no cached response or it has no validators
+     */
+
+    @Nullable
+    public EntityValidators findValidators(@NonNull ID id)
+    {
+        var entry = entries.getIfPresent(id);
+
+        return entry == null ? null : entry.validators();
+    }
+
+    /**
+     * @return the current generation, to be taken before reading the entity that will be stored
+     */
+
+    public long getGeneration()
+    {
+        return generation.get();
+    }
+
+    /**
+     * Caches the encoded entity, unless something has been invalidated since the entity was read or it is larger than
+     * the whole cache.
+     *
+     * @param id         identifier of the entity. Not null.
+     * @param json       entity encoded as JSON. Not null.
+     * @param validators validators of the encoded entity. Null if it has none.
+     * @param generation generation taken before the entity was read
+     *
+     * @return the encoded response. The caller owns (must send or release) the body.
+     */
+
+    public Encoded store(@NonNull ID id, byte @NonNull [] json, @Nullable EntityValidators validators, long generation)
+    {
+        if (json.length > maxBytes || generation != this.generation.get())
+        {
+            return new Encoded(NettyByteBufferFactory.DEFAULT.copiedBuffer(json), validators);
+        }
+
+        var buffer = NettyByteBufferFactory.DEFAULT.directBuffer(json.length).write(json);
+        var entry = new Entry(buffer, json.length, validators);
+
+        // Shared before it is cached, as it may be evicted, replaced or invalidated as soon as it is
+
+        var shared = share(entry);
+
+        entries.put(id, entry);
+
+        // An invalidation that came in after the generation was checked may have missed the entry
+
+        if (generation != this.generation.get())
+        {
+            entries.asMap().remove(id, entry);
+        }
+
+        return shared;
+    }
+
+    @Override
+    public void invalidated(ID id)
+    {
+        generation.incrementAndGet();
+        entries.invalidate(id);
+    }
+
+    @Override
+    public void invalidatedAll()
+    {
+        generation.incrementAndGet();
+        entries.invalidateAll();
+    }
+
+    public long getHitCount()
+    {
+        return hitCount.sum();
+    }
+
+    public long getMissCount()
+    {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount()
+    {
+        return evictionCount.sum();
+    }
+
+    public long getTotalBytes()
+    {
+        return entries.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L);
+    }
+
+    public long getSize()
+    {
+        return entries.estimatedSize();
+    }
+
+    private Encoded share(Entry entry)
+    {
+        // The slice shares the reference count of the cached buffer, so retain once for the server to release
+
+        ((ReferenceCounted) entry.buffer()).retain();
+
+        return new Encoded(entry.buffer().slice(0, entry.length()), entry.validators());
+    }
+
+    private void discard(Entry entry, RemovalCause cause)
+    {
+        if (cause.wasEvicted())
+        {
+            evictionCount.increment();
+        }
+
+        ((ReferenceCounted) entry.buffer()).release();
+    }
+}
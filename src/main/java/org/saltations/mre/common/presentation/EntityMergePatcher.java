@@ -0,0 +1,212 @@
+package org.saltations.mre.common.presentation;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.beans.BeanIntrospection;
+import io.micronaut.core.beans.BeanIntrospector;
+import io.micronaut.core.beans.BeanProperty;
+import io.micronaut.data.annotation.DateCreated;
+import io.micronaut.data.annotation.DateUpdated;
+import io.micronaut.data.annotation.GeneratedValue;
+import io.micronaut.data.annotation.Id;
+import io.micronaut.data.annotation.Version;
+
+/**
+ * Applies an <a href="https://datatracker.ietf.org/doc/html/rfc7386">RFC 7386</a> JSON Merge Patch directly onto a bean
+ * of type T using Micronaut bean introspection.
+ * <p>
+ * The patch is walked once and each member is written straight into the matching bean property. There is no
+ * intermediate serialization of the target bean, so the cost of a patch is proportional to the size of the patch
+ * rather than to the size of the patched bean.
+ * <p>
+ * Members are matched to properties using the {@link JsonProperty} name when present and the property name otherwise,
+ * which is the same naming the Jackson based round trip used. An explicit {@code null} clears the property.
+ * <p>
+ * Properties the persistence layer manages, the identifier, generated values, the creation and update dates and the
+ * version, are not patchable. Members naming them are skipped, the same properties the
+ * {@link org.saltations.mre.common.application.EntityChangeTracker} never writes, so that a patch cannot change a value
+ * that would be echoed back but never persisted.
+ *
+ * @param <T> Class of the bean being patched
+ */
+
+public class EntityMergePatcher<T>
+{
+    private final BeanIntrospection<T> introspection;
+
+    private final Map<String, BeanProperty<T, Object>> propertiesByJsonName;
+
+    private final Set<String> managedJsonNames;
+
+    private final ObjectMapper jsonMapper;
+
+    private final Map<Class<?>, EntityMergePatcher<Object>> nestedPatchersByClass = new HashMap<>();
+
+    /**
+     * Primary constructor
+     *
+     * @param beanClass  Class of the bean being patched. Must be introspected.
+     * @param jsonMapper Mapper used to convert patch values that have no direct representation (dates, enums, etc.)
+     */
+
+    public EntityMergePatcher(@NonNull Class<T> beanClass, @NonNull ObjectMapper jsonMapper)
+    {
+        this.introspection = BeanIntrospection.getIntrospection(beanClass);
+        this.jsonMapper = jsonMapper;
+        this.propertiesByJsonName = new HashMap<>();
+        this.managedJsonNames = new HashSet<>();
+
+        for (BeanProperty<T, Object> property : introspection.getBeanProperties())
+        {
+            if (property.isReadOnly())
+            {
+                continue;
+            }
+
+            var jsonName = property.stringValue(JsonProperty.class).filter(name -> !name.isEmpty()).orElse(property.getName());
+
+            if (property.hasAnnotation(Id.class)
+                    || property.hasAnnotation(GeneratedValue.class)
+                    || property.hasAnnotation(DateCreated.class)
+                    || property.hasAnnotation(DateUpdated.class)
+                    || property.hasAnnotation(Version.class))
+            {
+                managedJsonNames.add(jsonName);
+                continue;
+            }
+
+            propertiesByJsonName.put(jsonName, property);
+        }
+    }
+
+    /**
+     * Overlays the merge patch on top of the target.
+     *
+     * @param mergePatch RFC 7386 merge patch. Must be a JSON object. Not null.
+     * @param target     bean to be patched in place. Not null.
+     *
+     * @return the patched target
+     *
+     * @throws IllegalArgumentException if the patch is not an object, names an unknown property or has a value that
+     * cannot be converted to the property type. Members naming managed properties are skipped, not rejected.
+     */
+
+    public T apply(@NonNull JsonNode mergePatch, @NonNull T target)
+    {
+        if (!mergePatch.isObject())
+        {
+            throw new IllegalArgumentException("Merge patch for " + introspection.getBeanType().getSimpleName() + " must be a JSON object");
+        }
+
+        Iterator<Map.Entry<String, JsonNode>> members = mergePatch.fields();
+
+        while (members.hasNext())
+        {
+            var member = members.next();
+
+            if (managedJsonNames.contains(member.getKey()))
+            {
+                continue;
+            }
+
+            var property = propertiesByJsonName.get(member.getKey());
+
+            if (property == null)
+            {
+                throw new IllegalArgumentException("Unrecognized property '" + member.getKey() + "' for " + introspection.getBeanType().getSimpleName());
+            }
+
+            property.set(target, mergeValue(property, property.get(target), member.getValue()));
+        }
+
+        return target;
+    }
+
+    private Object mergeValue(BeanProperty<T, Object> property, Object current, JsonNode patchValue)
+    {
+        Class<?> type = property.getType();
+
+        if (patchValue.isNull())
+        {
+            if (type.isPrimitive())
+            {
+                throw new IllegalArgumentException("Cannot set primitive property '" + property.getName() + "' to null");
+            }
+
+            return null;
+        }
+
+        if (patchValue.isObject() && current != null)
+        {
+            var nested = nestedPatcherFor(type);
+
+            if (nested != null)
+            {
+                return nested.apply(patchValue, current);
+            }
+        }
+
+        // Fast paths for the common scalar cases. Everything else goes through the mapper.
+
+        if (patchValue.isTextual() && type == String.class)
+        {
+            return patchValue.textValue();
+        }
+
+        if (patchValue.isIntegralNumber())
+        {
+            if ((type == Integer.class || type == int.class) && patchValue.canConvertToInt())
+            {
+                return patchValue.intValue();
+            }
+
+            if ((type == Long.class || type == long.class) && patchValue.canConvertToLong())
+            {
+                return patchValue.longValue();
+            }
+        }
+
+        if (patchValue.isBoolean() && (type == Boolean.class || type == boolean.class))
+        {
+            return patchValue.booleanValue();
+        }
+
+        try
+        {
+            return jsonMapper.treeToValue(patchValue, type);
+        }
+        catch (JsonProcessingException e)
+        {
+            throw new IllegalArgumentException("Cannot convert value of '" + property.getName() + "' to " + type.getSimpleName(), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private EntityMergePatcher<Object> nestedPatcherFor(Class<?> type)
+    {
+        synchronized (nestedPatchersByClass)
+        {
+            if (nestedPatchersByClass.containsKey(type))
+            {
+                return nestedPatchersByClass.get(type);
+            }
+
+            var nested = BeanIntrospector.SHARED.findIntrospection(type)
+                    .map(found -> new EntityMergePatcher<>((Class<Object>) (Class<?>) found.getBeanType(), jsonMapper))
+                    .orElse(null);
+
+            nestedPatchersByClass.put(type, nested);
+
+            return nested;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package org.saltations.mre.common.presentation;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.MutableHttpResponse;
+import org.saltations.mre.common.application.ChangeStamp;
+
+/**
+ * HTTP validators ({@code ETag} and {@code Last-Modified}) of a resource, used to answer conditional GETs with
+ * {@code 304 Not Modified}.
+ * <p>
+ * For versioned entities the entity tag is the version ({@code "v<version>"}), which is also what {@code If-Match}
+ * is checked against when writing. Otherwise, for entities with change dates, the entity tag comes from the
+ * {@code updated} date. Either way both validators can be checked with a {@link ChangeStamp} lookup without loading
+ * or encoding the entity. For other entities the entity tag is a checksum of the encoded body and there is no
+ * {@code Last-Modified}.
+ *
+ * @param etag         strong entity tag, quoted
+ * @param lastModified when the resource last changed, to the microsecond. Null if not known.
+ */
+
+public record EntityValidators(@NonNull String etag, @Nullable Instant lastModified)
+{
+    private static final String VERSION_TAG_PREFIX = "\"v";
+
+    /**
+     * Validators derived from the version and last updated date of the entity.
+     *
+     * @param stamp version and last updated date of the entity. Not null.
+     *
+     * @return the validators or {@code null} if the stamp has neither
+     */
+
+    @Nullable
+    public static EntityValidators fromStamp(@NonNull ChangeStamp stamp)
+    {
+        if (stamp.version() == null)
+        {
+            return stamp.updated() == null ? null : fromUpdated(stamp.updated());
+        }
+
+        var lastModified = stamp.updated() == null ? null : stamp.updated().toInstant().truncatedTo(ChronoUnit.MICROS);
+
+        return new EntityValidators(VERSION_TAG_PREFIX + stamp.version() + "\"", lastModified);
+    }
+
+    /**
+     * Validators derived from the date the entity was last updated.
+     *
+     * @param updated date the entity was last updated. Not null.
+     */
+
+    public static EntityValidators fromUpdated(@NonNull OffsetDateTime updated)
+    {
+        // Truncated to what Postgres stores so that a freshly saved entity and the same entity read back agree
+
+        var instant = updated.toInstant().truncatedTo(ChronoUnit.MICROS);
+        var micros = ChronoUnit.MICROS.between(Instant.EPOCH, instant);
+
+        return new EntityValidators("\"" + Long.toHexString(micros) + "\"", instant);
+    }
+
+    /**
+     * Validators of the entity, from its version or updated date when it has them and otherwise from its encoded form.
+     *
+     * @param entity entity. Not null.
+     * @param json   entity encoded as JSON. Only used when the entity has no version or updated date. Null if not encoded.
+     *
+     * @return the validators or {@code null} if there is nothing to derive them from
+     */
+
+    @Nullable
+    public static EntityValidators of(@NonNull Object entity, byte @Nullable [] json)
+    {
+        var stamp = ChangeStamp.of(entity);
+
+        if (stamp != null)
+        {
+            return fromStamp(stamp);
+        }
+
+        if (json == null)
+        {
+            return null;
+        }
+
+        var crc = new CRC32C();
+
+        crc.update(json);
+
+        return new EntityValidators("\"" + Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(json.length) + "\"", null);
+    }
+
+    /**
+     * Versions named by the strong entity tags of an {@code If-Match} header. Weak tags never match (RFC 9110) and tags
+     * that were not made from a version are skipped.
+     *
+     * @param ifMatch value of the {@code If-Match} header other than {@code *}. Not null.
+     *
+     * @return versions the client will accept. Empty if none of the tags is a version.
+     */
+
+    public static List<Long> versionsIn(@NonNull String ifMatch)
+    {
+        var versions = new ArrayList<Long>();
+
+        for (String candidate : ifMatch.split(","))
+        {
+            var tag = candidate.trim();
+
+            if (tag.startsWith(VERSION_TAG_PREFIX) && tag.endsWith("\"") && tag.length() > VERSION_TAG_PREFIX.length() + 1)
+            {
+                try
+                {
+                    versions.add(Long.parseLong(tag.substring(VERSION_TAG_PREFIX.length(), tag.length() - 1)));
+                }
+                catch (NumberFormatException e)
+                {
+                    // Not one of ours, so it cannot match
+                }
+            }
+        }
+
+        return versions;
+    }
+
+    /**
+     * Says whether the client's copy is current, following RFC 9110: {@code If-None-Match} when present and otherwise
+     * {@code If-Modified-Since}.
+     *
+     * @param request request with the conditional headers. Not null.
+     *
+     * @return {@code true} if the client's copy is current and a {@code 304 Not Modified} can be sent
+     */
+
+    public boolean notModifiedFor(@NonNull HttpRequest<?> request)
+    {
+        var ifNoneMatch = request.getHeaders().get(HttpHeaders.IF_NONE_MATCH);
+
+        if (ifNoneMatch != null)
+        {
+            for (String candidate : ifNoneMatch.split(","))
+            {
+                var tag = candidate.trim();
+
+                if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(etag))
+                {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        if (lastModified == null)
+        {
+            return false;
+        }
+
+        return request.getHeaders().findDate(HttpHeaders.IF_MODIFIED_SINCE)
+                .map(since -> !lastModified.truncatedTo(ChronoUnit.SECONDS).isAfter(since.toInstant()))
+                .orElse(false);
+    }
+
+    /**
+     * Adds the validators to the response.
+     *
+     * @param response response. Not null.
+     *
+     * @return the response
+     */
+
+    public <T> MutableHttpResponse<T> applyTo(@NonNull MutableHttpResponse<T> response)
+    {
+        response.header(HttpHeaders.ETAG, etag);
+
+        if (lastModified != null)
+        {
+            response.header(HttpHeaders.LAST_MODIFIED, DateTimeFormatter.RFC_1123_DATE_TIME.format(lastModified.atOffset(ZoneOffset.UTC)));
+        }
+
+        return response;
+    }
+
+    /**
+     * Adds the validators to the response if there are any.
+     */
+
+    public static <T> MutableHttpResponse<T> applyIfPresent(@Nullable EntityValidators validators, @NonNull MutableHttpResponse<T> response)
+    {
+        return validators == null ? response : validators.applyTo(response);
+    }
+}
@@ -0,0 +1,27 @@
+package org.saltations.mre.common.presentation;
+
+import java.text.MessageFormat;
+
+import io.micronaut.http.HttpStatus;
+import io.micronaut.problem.HttpStatusType;
+import io.micronaut.serde.annotation.Serdeable;
+import org.saltations.mre.common.core.errors.DomainProblemBase;
+
+/**
+ * Denotes a page cursor that could not be decoded for a given type of entity
+ */
+
+@Serdeable
+public class InvalidCursor extends DomainProblemBase
+{
+    private static final String PROBLEM_TYPE = "invalid-cursor";
+
+    private static final String TITLE_TEMPLATE = "Invalid cursor for {0}";
+
+    public InvalidCursor(Throwable e, String resourceTypeName, String cursor)
+    {
+        super(e, PROBLEM_TYPE, MessageFormat.format(TITLE_TEMPLATE, resourceTypeName),"Cannot page through {0} starting from cursor {1}", resourceTypeName, cursor);
+        statusType(new HttpStatusType(HttpStatus.BAD_REQUEST));
+    }
+
+}
@@ -0,0 +1,61 @@
+package org.saltations.mre.common.presentation;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.convert.ConversionService;
+
+/**
+ * Encodes and decodes the opaque cursors used for keyset pagination.
+ * <p>
+ * A cursor is the identifier of the last entity on a page. Clients are expected to hand it back unchanged to get
+ * the next page and should not rely on its contents.
+ *
+ * @param <ID> Type of the <em>entity</em> identifier.
+ */
+
+public class KeysetCursor<ID>
+{
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Class<ID> idClass;
+
+    public KeysetCursor(@NonNull Class<ID> idClass)
+    {
+        this.idClass = idClass;
+    }
+
+    /**
+     * Encodes the identifier of the last entity on a page
+     *
+     * @param lastId identifier of the last entity on the page. Not null.
+     *
+     * @return Opaque cursor
+     */
+
+    public String encode(@NonNull ID lastId)
+    {
+        return ENCODER.encodeToString(lastId.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor back into the identifier of the last entity on a page
+     *
+     * @param cursor opaque cursor produced by {@link #encode}. Not null.
+     *
+     * @return Identifier of the last entity on the page
+     *
+     * @throws IllegalArgumentException if the cursor was not produced by {@link #encode}
+     */
+
+    public ID decode(@NonNull String cursor)
+    {
+        var decoded = new String(DECODER.decode(cursor), StandardCharsets.UTF_8);
+
+        return ConversionService.SHARED.convert(decoded, idClass)
+                .orElseThrow(() -> new IllegalArgumentException("Cursor does not contain a valid " + idClass.getSimpleName()));
+    }
+}
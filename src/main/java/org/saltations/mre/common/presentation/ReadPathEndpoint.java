@@ -0,0 +1,44 @@
+package org.saltations.mre.common.presentation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import io.micronaut.management.endpoint.annotation.Endpoint;
+import io.micronaut.management.endpoint.annotation.Read;
+
+/**
+ * Management endpoint ({@code /read-paths}) with the split, per CRUD controller, between reads answered from memory on
+ * the event loop, reads served by a non-blocking service and reads handed off to the crud executor.
+ */
+
+@Endpoint(id = "read-paths")
+public class ReadPathEndpoint
+{
+    private final List<RestCrudEntityControllerFoundation<?, ?, ?, ?, ?, ?, ?>> controllers;
+
+    public ReadPathEndpoint(List<RestCrudEntityControllerFoundation<?, ?, ?, ?, ?, ?, ?>> controllers)
+    {
+        this.controllers = controllers;
+    }
+
+    /**
+     * @return statistics by entity name
+     */
+
+    @Read
+    public Map<String, Map<String, Number>> statistics()
+    {
+        var statistics = new TreeMap<String, Map<String, Number>>();
+
+        for (var controller : controllers)
+        {
+            statistics.put(controller.getEntityName(), Map.of(
+                    "in-memory", controller.getReadsInMemory(),
+                    "non-blocking", controller.getReadsNonBlocking(),
+                    "offloaded", controller.getReadsOffloaded()));
+        }
+
+        return statistics;
+    }
+}
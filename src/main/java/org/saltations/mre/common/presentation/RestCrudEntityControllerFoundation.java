@@ -1,49 +1,91 @@
 package org.saltations.mre.common.presentation;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import com.github.fge.jsonpatch.mergepatch.JsonMergePatch;
 import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.buffer.netty.NettyByteBufferFactory;
+import io.micronaut.core.beans.BeanIntrospection;
+import io.micronaut.core.io.buffer.ByteBuffer;
+import io.micronaut.core.io.buffer.ReferenceCounted;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
 import io.micronaut.http.MediaType;
 import io.micronaut.http.MutableHttpResponse;
 import io.micronaut.http.annotation.Body;
 import io.micronaut.http.annotation.Delete;
 import io.micronaut.http.annotation.Get;
+import io.micronaut.http.annotation.Header;
 import io.micronaut.http.annotation.Patch;
 import io.micronaut.http.annotation.Post;
 import io.micronaut.http.annotation.Put;
+import io.micronaut.http.annotation.QueryValue;
+import io.micronaut.http.uri.UriBuilder;
+import io.micronaut.json.JsonMapper;
 import io.micronaut.validation.validator.Validator;
 import io.micronaut.web.router.RouteBuilder;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.annotation.PreDestroy;
 import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.saltations.endeavour.Failure;
 import org.saltations.endeavour.FailureDescription;
 import org.saltations.endeavour.FailureType;
+import org.saltations.endeavour.Outcome;
 import org.saltations.mre.common.application.CannotFindEntity;
 import org.saltations.mre.common.application.CannotPatchEntity;
+import org.saltations.mre.common.application.ChangeStamp;
 import org.saltations.mre.common.application.CrudEntityRepo;
 import org.saltations.mre.common.application.CrudEntityService;
 import org.saltations.mre.common.application.CrudFailure;
+import org.saltations.mre.common.application.EntityVersionConflict;
+import org.saltations.mre.common.application.ReactiveCrudEntityService;
+import org.saltations.mre.common.application.WriteResult;
 import org.saltations.mre.common.core.errors.DomainProblemBase;
 import org.saltations.mre.common.domain.Entity;
 import org.saltations.mre.common.domain.EntityMapper;
+import org.saltations.mre.common.domain.Versioned;
 import org.zalando.problem.Problem;
 import org.zalando.problem.Status;
 import org.zalando.problem.ThrowableProblem;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 /**
  * Foundation (provides some default functionality) controller for basic CRUD operations on entities of type E
+ * <p>
+ * Reads start on the Netty event loop and are answered there when the answer is already in memory (a cached
+ * response, a 304 against cached validators, a cached entity or an id that is known to be missing). Only reads that
+ * need the database are handed off to a blocking executor, unless they are served by a non-blocking service. Writes
+ * are always handed off. Both go to the {@link CrudExecutorFactory#CRUD crud} executor, or to the read and write
+ * lanes of the {@link Bulkhead} of the feature slice when it has one.
  *
  * @param <ID> Type of the <em>entity</em> identifier .
  * @param <IC> Interface of the <em>core</em> business concept
@@ -63,6 +105,50 @@ public class RestCrudEntityControllerFoundation<ID,IC,
         ES extends CrudEntityService<ID,IC,C,E, ER, EM>>
         implements EntityController<ID, IC, C, E, ER, EM, ES>
 {
+    /**
+     * Response header on replace and patch that says whether the request resulted in a write ({@code true}) or if the
+     * content was unchanged and nothing was written ({@code false}).
+     */
+
+    public static final String WRITE_APPLIED_HEADER = "X-Write-Applied";
+
+    /**
+     * Preference (RFC 7240) with which a client lets a replace be written behind and answered with
+     * {@code 202 Accepted} before it is written
+     */
+
+    public static final String RESPOND_ASYNC = "respond-async";
+
+    /**
+     * Number of resources on a page when the client does not ask for a specific number
+     */
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    /**
+     * Largest number of resources on a page that a client can ask for
+     */
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    /**
+     * Media type for newline delimited JSON, one resource per line
+     */
+
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    /**
+     * Number of resources read from the database at a time during an export
+     */
+
+    public static final int EXPORT_CHUNK_SIZE = 1000;
+
+    /**
+     * Largest number of items accepted in a single bulk request
+     */
+
+    public static final int MAX_BULK_SIZE = 5000;
+
     private final RouteBuilder.UriNamingStrategy uriNaming;
 
     @Getter
@@ -82,7 +168,33 @@ public class RestCrudEntityControllerFoundation<ID,IC,
     @Getter
     private final ObjectMapper jsonMapper;
 
-    public RestCrudEntityControllerFoundation(RouteBuilder.UriNamingStrategy uriNaming, Class<E> entityClass, ES entityService, ER entityRepo, EM entityMapper, Validator validator)
+    private final EntityMergePatcher<E> mergePatcher;
+
+    private final KeysetCursor<ID> keysetCursor;
+
+    private final ObjectWriter exportWriter;
+
+    private EncodedResponseCache<ID> responseCache;
+
+    private JsonMapper responseMapper;
+
+    private ReactiveCrudEntityService<ID,E> reactiveReads;
+
+    private Scheduler readLane;
+
+    private Scheduler writeLane;
+
+    private Bulkhead bulkhead;
+
+    private final LongAdder readsInMemory = new LongAdder();
+
+    private final LongAdder readsNonBlocking = new LongAdder();
+
+    private final LongAdder readsOffloaded = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public RestCrudEntityControllerFoundation(RouteBuilder.UriNamingStrategy uriNaming, Class<E> entityClass, ES entityService, ER entityRepo, EM entityMapper, Validator validator,
+                                              ExecutorService crudExecutor)
     {
         this.uriNaming = uriNaming;
         this.entityClass = entityClass;
@@ -90,33 +202,474 @@ public class RestCrudEntityControllerFoundation<ID,IC,
         this.entityRepo = entityRepo;
         this.entityMapper = entityMapper;
         this.validator = validator;
+        this.readLane = Schedulers.fromExecutorService(crudExecutor);
+        this.writeLane = readLane;
 
         this.jsonMapper = new ObjectMapper();
         this.jsonMapper.registerModule(new JavaTimeModule());
+
+        this.mergePatcher = new EntityMergePatcher<>(entityClass, jsonMapper);
+
+        var idClass = (Class<ID>) (Class<?>) BeanIntrospection.getIntrospection(entityClass).getRequiredProperty("id", Object.class).getType();
+
+        this.keysetCursor = new KeysetCursor<>(idClass);
+
+        // Dates as ISO-8601 strings so exported lines look like the bodies of individual GETs
+
+        this.exportWriter = jsonMapper.writer().without(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    /**
+     * Opts in to caching the encoded responses of {@link #get} off heap. Entries are dropped whenever the entity
+     * service reports that the entity has changed. Intended to be called from the constructor of the concrete controller.
+     *
+     * @param responseMapper mapper that encodes the responses, the same one the server uses for response bodies
+     * @param maxBytes       largest total size of the cached responses
+     */
+
+    protected void enableResponseCache(@NonNull JsonMapper responseMapper, long maxBytes)
+    {
+        this.responseMapper = responseMapper;
+        this.responseCache = new EncodedResponseCache<>(maxBytes);
+
+        entityService.addInvalidationListener(responseCache);
+    }
+
+    /**
+     * Opts in to serving {@link #get}, {@link #list}, {@link #getAll} and {@link #export} from a non-blocking service,
+     * composing its {@code Mono}s instead of blocking for the database. Writes stay with the (blocking) entity service.
+     * Intended to be called from the constructor of the concrete controller.
+     *
+     * @param reactiveReads non-blocking service that finds the entities
+     */
+
+    protected void enableReactiveReads(@NonNull ReactiveCrudEntityService<ID,E> reactiveReads)
+    {
+        this.reactiveReads = reactiveReads;
+    }
+
+    /**
+     * Opts in to running the blocking reads and the writes of this controller on the read and write lanes of their own
+     * {@link Bulkhead}, instead of the crud executor shared with other controllers. Intended to be called from the
+     * constructor of the concrete controller.
+     *
+     * @param configuration sizes of the lanes
+     * @param execution     how the crud endpoints execute ({@code crud.execution}), which the lanes follow
+     */
+
+    protected void enableBulkhead(@NonNull BulkheadConfiguration configuration, @NonNull CrudExecutorFactory.ExecutionMode execution)
+    {
+        this.bulkhead = new Bulkhead(configuration, execution);
+        this.readLane = Schedulers.fromExecutorService(bulkhead.getReads(), configuration.getName() + "-reads");
+        this.writeLane = Schedulers.fromExecutorService(bulkhead.getWrites(), configuration.getName() + "-writes");
+    }
+
+    /**
+     * @return the bulkhead or {@code null} if the controller does not have one
+     */
+
+    public Bulkhead getBulkhead()
+    {
+        return bulkhead;
+    }
+
+    /**
+     * Lets the work already on the lanes of the bulkhead finish before the controller goes away.
+     */
+
+    @PreDestroy
+    public void shutdownBulkhead()
+    {
+        if (bulkhead != null)
+        {
+            bulkhead.shutdown();
+        }
+    }
+
+    /**
+     * @return the cache of encoded responses or {@code null} if the controller does not have one
+     */
+
+    public EncodedResponseCache<ID> getResponseCache()
+    {
+        return responseCache;
     }
 
     /**
      * Get for given id
      *
+     * <p>Responses carry {@code ETag} and {@code Last-Modified} validators. A conditional request
+     * ({@code If-None-Match} or {@code If-Modified-Since}) whose copy is current gets {@code 304 Not Modified}, checked
+     * against the cached response or the last updated date without loading the resource.
+     *
+     * @param request the current request. Used for the conditional headers.
      * @param id the identifier for the resource. Not null.
      * @return populated resource
      */
 
     @Get("/{id}")
-    public Mono<MutableHttpResponse<E>> get(@NotNull ID id)
+    @ApiResponse(responseCode = "200",
+            description = "Found",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON)
+    )
+    @ApiResponse(responseCode = "304",
+            description = "Not modified since the copy identified by If-None-Match or If-Modified-Since"
+    )
+    public Mono<MutableHttpResponse<?>> get(HttpRequest<?> request, @NotNull ID id)
     {
-        E found;
+        // On the event loop. Anything that can be answered from memory is answered here.
+
+        if (entityService.isKnownMissing(id))
+        {
+            readsInMemory.increment();
+
+            throw createThrowableProblem(new CannotFindEntity(getEntityName(), id));
+        }
+
+        // Taken before reading the entity, so that an invalidation landing while it is read and encoded stops the
+        // encoding from being cached
+
+        var generation = responseCache == null ? 0 : responseCache.getGeneration();
+        var conditional = isConditional(request);
+        var inMemory = entityService.findInMemory(id);
+
+        if (conditional)
+        {
+            var current = Optional.ofNullable(cachedValidators(id))
+                    .or(() -> inMemory.map(entity -> EntityValidators.of(entity, null)));
+
+            if (current.isPresent() && current.get().notModifiedFor(request))
+            {
+                readsInMemory.increment();
+
+                return Mono.just(current.get().applyTo(HttpResponse.notModified()));
+            }
+        }
+
+        if (responseCache != null)
+        {
+            var cached = responseCache.find(id);
+
+            if (cached != null)
+            {
+                readsInMemory.increment();
+
+                return Mono.just(encodedOk(cached));
+            }
+        }
+
+        if (inMemory.isPresent())
+        {
+            readsInMemory.increment();
+
+            return Mono.just(found(request, false, id, inMemory.get(), generation));
+        }
+
+        if (reactiveReads != null)
+        {
+            readsNonBlocking.increment();
+
+            return reactiveReads.find(id)
+                    .switchIfEmpty(Mono.error(() -> createThrowableProblem(new CannotFindEntity(getEntityName(), id))))
+                    .map(found -> found(request, conditional, id, found, generation));
+        }
+
+        return this.<MutableHttpResponse<?>>offloaded(() -> {
+            if (conditional)
+            {
+                var current = currentValidators(id);
+
+                if (current != null && current.notModifiedFor(request))
+                {
+                    return current.applyTo(HttpResponse.notModified());
+                }
+            }
+
+            var found = entityService.find(id).orElseThrow(() -> createThrowableProblem(new CannotFindEntity(getEntityName(), id)));
+
+            return found(request, false, id, found, generation);
+        });
+    }
+
+    /**
+     * Hands a read that blocks on the database off the event loop to the read lane
+     */
+
+    private <T> Mono<T> offloaded(Callable<T> read)
+    {
+        readsOffloaded.increment();
+
+        return onLane(read, readLane, "read");
+    }
+
+    /**
+     * Hands a write off the event loop to the write lane
+     */
+
+    private <T> Mono<T> onWriteLane(Callable<T> write)
+    {
+        return onLane(write, writeLane, "write");
+    }
+
+    private <T> Mono<T> onLane(Callable<T> work, Scheduler lane, String laneName)
+    {
+        return Mono.fromCallable(work)
+                   .subscribeOn(lane)
+                   .onErrorMap(RejectedExecutionException.class, e -> createThrowableProblem(new BulkheadFull(e, getEntityName(), laneName)));
+    }
+
+    /**
+     * @return number of reads answered from memory on the event loop
+     */
+
+    public long getReadsInMemory()
+    {
+        return readsInMemory.sum();
+    }
+
+    /**
+     * @return number of reads served by the non-blocking service without leaving the event loop
+     */
+
+    public long getReadsNonBlocking()
+    {
+        return readsNonBlocking.sum();
+    }
+
+    /**
+     * @return number of reads (and export chunks) handed off to the read lane
+     */
+
+    public long getReadsOffloaded()
+    {
+        return readsOffloaded.sum();
+    }
+
+    /**
+     * Response for a resource that has just been read, cached if there is a response cache.
+     *
+     * @param checkValidators whether the client's copy still has to be checked against the resource
+     */
+
+    private MutableHttpResponse<?> found(HttpRequest<?> request, boolean checkValidators, ID id, E found, long generation)
+    {
+        if (checkValidators)
+        {
+            var validators = EntityValidators.of(found, null);
+
+            if (validators != null && validators.notModifiedFor(request))
+            {
+                return validators.applyTo(HttpResponse.notModified());
+            }
+        }
+
+        if (responseCache == null)
+        {
+            return EntityValidators.applyIfPresent(EntityValidators.of(found, null), HttpResponse.ok(found));
+        }
 
         try
         {
-            found = this.entityService.find(id).orElseThrow(() -> new CannotFindEntity(getEntityName(), id));
+            var json = responseMapper.writeValueAsBytes(found);
+
+            return encodedOk(responseCache.store(id, json, EntityValidators.of(found, json), generation));
         }
-        catch (DomainProblemBase e)
+        catch (IOException e)
         {
-            throw createThrowableProblem(e);
+            log.warn("Could not encode {} {} for the response cache", getEntityName(), id, e);
+
+            return EntityValidators.applyIfPresent(EntityValidators.of(found, null), HttpResponse.ok(found));
+        }
+    }
+
+    private static boolean isConditional(HttpRequest<?> request)
+    {
+        return request.getHeaders().contains(HttpHeaders.IF_NONE_MATCH) || request.getHeaders().contains(HttpHeaders.IF_MODIFIED_SINCE);
+    }
+
+    /**
+     * Validators of the resource as it is now, from the cached response or else the version and last updated date.
+     * Null if they cannot be had without loading the resource.
+     */
+
+    private EntityValidators currentValidators(ID id)
+    {
+        var cached = cachedValidators(id);
+
+        if (cached != null)
+        {
+            return cached;
         }
 
-        return Mono.just(HttpResponse.ok(found));
+        return entityService.findChangeStamp(id).map(EntityValidators::fromStamp).orElse(null);
+    }
+
+    private EntityValidators cachedValidators(ID id)
+    {
+        return responseCache == null ? null : responseCache.findValidators(id);
+    }
+
+    /**
+     * Version that a write must start from according to the {@code If-Match} header.
+     *
+     * @return the expected version. Null if the write may apply to any version.
+     *
+     * @throws ThrowableProblem {@code 412 Precondition Failed} if none of the entity tags can match the resource
+     */
+
+    private Long expectedVersion(ID id, String ifMatch)
+    {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*"))
+        {
+            return null;
+        }
+
+        var versions = EntityValidators.versionsIn(ifMatch);
+
+        if (versions.size() == 1)
+        {
+            return versions.get(0);
+        }
+
+        // Several acceptable versions; the write must start from whichever one is stored now
+
+        var current = entityService.findChangeStamp(id).map(ChangeStamp::version).filter(versions::contains);
+
+        if (current.isEmpty())
+        {
+            throw createThrowableProblem(new EntityVersionConflict(getEntityName(), id, ifMatch));
+        }
+
+        return current.get();
+    }
+
+    private MutableHttpResponse<?> encodedOk(EncodedResponseCache.Encoded encoded)
+    {
+        return EntityValidators.applyIfPresent(encoded.validators(), HttpResponse.ok(encoded.body()).contentType(MediaType.APPLICATION_JSON_TYPE));
+    }
+
+    /**
+     * List in identifier order, a page at a time
+     *
+     * <p>Uses keyset pagination so that a page deep into the table costs the same as the first page. When there may be
+     * more resources, the response carries a {@code Link} header with {@code rel="next"} that holds an opaque cursor
+     * for the next page.
+     *
+     * @param request the current request. Used to build the link to the next page.
+     * @param cursor opaque cursor taken from the link to the next page. Absent for the first page.
+     * @param limit maximum number of resources on the page
+     *
+     * @return page of resources
+     */
+
+    @Get
+    public Mono<MutableHttpResponse<List<E>>> list(HttpRequest<?> request,
+                                                   @Nullable @QueryValue String cursor,
+                                                   @QueryValue(defaultValue = "" + DEFAULT_PAGE_SIZE) @Min(1) @Max(MAX_PAGE_SIZE) int limit)
+    {
+        ID after = null;
+
+        if (cursor != null)
+        {
+            try
+            {
+                after = keysetCursor.decode(cursor);
+            }
+            catch (IllegalArgumentException e)
+            {
+                throw createThrowableProblem(new InvalidCursor(e, getEntityName(), cursor));
+            }
+        }
+
+        // Ask for one more than the limit to find out if there is a next page without another query
+
+        if (reactiveReads != null)
+        {
+            readsNonBlocking.increment();
+
+            return reactiveReads.findPage(after, limit + 1).map(found -> pageOf(request, found, limit));
+        }
+
+        var from = after;
+
+        return offloaded(() -> pageOf(request, entityService.findPage(from, limit + 1), limit));
+    }
+
+    /**
+     * Response with the first {@code limit} resources found, linking to the next page if more were found
+     */
+
+    private MutableHttpResponse<List<E>> pageOf(HttpRequest<?> request, List<E> found, int limit)
+    {
+        var hasNext = found.size() > limit;
+        var page = hasNext ? found.subList(0, limit) : found;
+
+        var response = HttpResponse.ok(page);
+
+        if (hasNext)
+        {
+            var next = UriBuilder.of(request.getUri())
+                    .replaceQueryParam("cursor", keysetCursor.encode(page.get(page.size() - 1).getId()))
+                    .replaceQueryParam("limit", limit)
+                    .build();
+
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+
+        return response;
+    }
+
+    /**
+     * Export all resources as newline delimited JSON
+     *
+     * <p>Resources are read in identifier order, {@value #EXPORT_CHUNK_SIZE} at a time using the same keyset query as
+     * {@link #list}, and the next chunk is only read once the client has consumed the previous one. Each resource is
+     * serialized straight into a pooled Netty buffer, so heap use stays flat regardless of the size of the table.
+     *
+     * @return stream of resources, one JSON object per line
+     */
+
+    @Get(value = "/export", produces = APPLICATION_NDJSON)
+    public Flux<ByteBuffer<?>> export()
+    {
+        return readChunk(null)
+                .expand(chunk -> chunk.size() < EXPORT_CHUNK_SIZE ? Mono.<List<E>>empty() : readChunk(chunk.get(chunk.size() - 1).getId()))
+                .concatMapIterable(chunk -> chunk, 1)      // Prefetch one chunk, not the default 32, so reads keep pace with the client
+                .map(this::toNdjsonLine);
+    }
+
+    private Mono<List<E>> readChunk(ID after)
+    {
+        if (reactiveReads != null)
+        {
+            readsNonBlocking.increment();
+
+            return reactiveReads.findPage(after, EXPORT_CHUNK_SIZE);
+        }
+
+        return offloaded(() -> entityService.findPage(after, EXPORT_CHUNK_SIZE));
+    }
+
+    private ByteBuffer<?> toNdjsonLine(E entity)
+    {
+        var buffer = NettyByteBufferFactory.DEFAULT.buffer();
+
+        try
+        {
+            exportWriter.writeValue(buffer.toOutputStream(), entity);
+            buffer.write((byte) '\n');
+        }
+        catch (IOException e)
+        {
+            if (buffer instanceof ReferenceCounted counted)
+            {
+                counted.release();
+            }
+
+            throw new UncheckedIOException(e);
+        }
+
+        return buffer;
     }
 
     /**
@@ -139,15 +692,135 @@ public class RestCrudEntityControllerFoundation<ID,IC,
     )
     public Mono<MutableHttpResponse<E>> create(@NotNull @Valid @Body final C toBeCreated) throws ThrowableProblem
     {
-        // Part of the service contract is to return only and outcome , so no exceptions are thrown
-        var result = entityService.create(toBeCreated);
+        if (!entityService.groupCommits())
+        {
+            return onWriteLane(() -> createdFrom(entityService.create(toBeCreated)));
+        }
+
+        // Concurrent creates are committed together as a group. The create is only submitted here and the response is
+        // completed from the outcome of its group, so no lane thread is held while the group forms.
+
+        return Mono.fromFuture(() -> entityService.submitInGroup(toBeCreated))
+                   .map(this::createdFrom);
+    }
+
+    private MutableHttpResponse<E> createdFrom(Outcome<FailureDescription, E> result)
+    {
+        // Part of the service contract is to return only and outcome , so no exceptions are thrown.
 
         result.onFailure(failure -> log.error("Failure: {}", failure));
 
-        return Mono.just(created((E) result.get()));
+        return created((E) result.get());
+    }
+
+
+
+    /**
+     * Create many from provided payloads
+     *
+     * <p>Every item is validated. The valid items are created together in batched inserts within a single transaction
+     * and the invalid ones are reported back without being created. The response has one result per item, in the
+     * same order as the request.
+     *
+     * @param toBeCreated DTOs containing the info needed to create the resources. At most {@value #MAX_BULK_SIZE}.
+     *
+     * @return per item results
+     */
+
+    @Post("/bulk")
+    @ApiResponse(responseCode = "200",
+            description = "Processed. Each item has its own status",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON)
+    )
+    public Mono<MutableHttpResponse<List<BulkItemResult<E>>>> createAll(@NotNull @Size(max = MAX_BULK_SIZE) @Body List<C> toBeCreated)
+    {
+        var results = new ArrayList<BulkItemResult<E>>(toBeCreated.size());
+        var valid = new ArrayList<C>(toBeCreated.size());
+        var validIndexes = new ArrayList<Integer>(toBeCreated.size());
+
+        for (int i = 0; i < toBeCreated.size(); i++)
+        {
+            var violations = validator.validate(toBeCreated.get(i));
+
+            if (violations.isEmpty())
+            {
+                valid.add(toBeCreated.get(i));
+                validIndexes.add(i);
+            }
+            else
+            {
+                var errors = violations.stream().map(v -> v.getPropertyPath() + ": " + v.getMessage()).sorted().toList();
+
+                results.add(BulkItemResult.rejected(i, HttpStatus.BAD_REQUEST.getCode(), errors));
+            }
+        }
+
+        return onWriteLane(() -> {
+            List<E> created;
+
+            try
+            {
+                created = valid.isEmpty() ? List.of() : entityService.createAll(valid);
+            }
+            catch (DomainProblemBase e)
+            {
+                throw createThrowableProblem(e);
+            }
+
+            for (int i = 0; i < created.size(); i++)
+            {
+                results.add(BulkItemResult.succeeded(validIndexes.get(i), HttpStatus.CREATED.getCode(), created.get(i)));
+            }
+
+            results.sort(Comparator.comparingInt(BulkItemResult::getIndex));
+
+            return HttpResponse.ok(results);
+        });
+    }
+
+    /**
+     * Get many for given ids
+     *
+     * @param ids the identifiers for the resources. At most {@value #MAX_BULK_SIZE}.
+     *
+     * @return the resources that were found. Ids with no matching resource are left out.
+     */
+
+    @Post("/batch-get")
+    public Mono<MutableHttpResponse<List<E>>> getAll(@NotNull @Size(max = MAX_BULK_SIZE) @Body List<ID> ids)
+    {
+        if (reactiveReads != null)
+        {
+            readsNonBlocking.increment();
+
+            return reactiveReads.findAll(ids).collectList().map(HttpResponse::ok);
+        }
+
+        return offloaded(() -> HttpResponse.ok(entityService.findAll(ids)));
     }
 
+    /**
+     * Delete many for given ids
+     *
+     * @param ids the identifiers for the resources. At most {@value #MAX_BULK_SIZE}. Ids with no matching resource are ignored.
+     */
 
+    @Post("/batch-delete")
+    public Mono<MutableHttpResponse<?>> deleteAll(@NotNull @Size(max = MAX_BULK_SIZE) @Body List<ID> ids)
+    {
+        return onWriteLane(() -> {
+            try
+            {
+                entityService.deleteAll(ids);
+            }
+            catch (DomainProblemBase e)
+            {
+                throw createThrowableProblem(e);
+            }
+
+            return HttpResponse.ok();
+        });
+    }
 
     private Status convert(FailureType failureType)
     {
@@ -208,33 +881,98 @@ public class RestCrudEntityControllerFoundation<ID,IC,
      *
      * Replace with provided payload
      *
+     * <p>With an {@code If-Match} header the resource is only replaced if it is still at the version named by one of
+     * the entity tags, otherwise the response is {@code 412 Precondition Failed}.
+     *
+     * <p>With {@code Prefer: respond-async}, no {@code If-Match} and a service that writes behind, the replacement is
+     * coalesced with the other replacements of the resource arriving within the write-behind window and the response
+     * is {@code 202 Accepted} straight away. The client does not hear whether the write succeeded.
+     *
      * @param id the identifier for the resource. Not null.
      * @param replacement Payload resource to be used to replace the id'd resource
+     * @param ifMatch entity tags of the versions the client is replacing. Null to replace any version.
+     * @param prefer preferences of the client. Null for none.
      *
-     * @return populated resource
+     * @return populated resource. The {@value #WRITE_APPLIED_HEADER} header says whether anything was written.
      */
 
     @Put("/{id}")
-    public Mono<MutableHttpResponse<?>> replace(@NotNull ID id, @NotNull @Valid @Body E replacement)
+    @ApiResponse(responseCode = "202",
+            description = "Accepted to be written behind (Prefer: respond-async)"
+    )
+    @ApiResponse(responseCode = "412",
+            description = "Changed since the version identified by If-Match"
+    )
+    public Mono<MutableHttpResponse<?>> replace(@NotNull ID id, @NotNull @Valid @Body E replacement,
+                                                @Nullable @Header(HttpHeaders.IF_MATCH) String ifMatch,
+                                                @Nullable @Header("Prefer") String prefer)
     {
-        E replaced;
+        return onWriteLane(() -> {
+            if (ifMatch == null && entityService.writesBehind() && prefers(prefer, RESPOND_ASYNC))
+            {
+                return replaceBehind(id, replacement);
+            }
 
-        try
-        {
-            if (entityService.doesNotExist(id))
+            WriteResult<E> replaced;
+
+            var expectedVersion = expectedVersion(id, ifMatch);
+
+            try
+            {
+                replaced = entityService.serializeWrite(id, () -> entityService.replace(id, replacement, expectedVersion));
+            }
+            catch (DomainProblemBase e)
             {
-                throw new CannotFindEntity(getEntityName(), id);
+                throw createThrowableProblem(e);
             }
 
-            replaced = entityService.update(replacement);
+            return okWithWriteApplied(replaced);
+        });
+    }
+
+    private MutableHttpResponse<?> replaceBehind(ID id, E replacement)
+    {
+        if (!entityService.exists(id))
+        {
+            throw createThrowableProblem(new CannotFindEntity(getEntityName(), id));
         }
-        catch (DomainProblemBase e)
+
+        replacement.setId(id);
+
+        // Like a PUT written straight away, only If-Match names the expected version and never the version in the body
+
+        if (replacement instanceof Versioned versioned)
         {
-            throw createThrowableProblem(e);
+            versioned.setVersion(null);
         }
 
-        return Mono.just(HttpResponse.ok(replaced));
+        entityService.updateBehind(replacement)
+                     .whenComplete((written, e) -> {
+                         if (e != null)
+                         {
+                             log.warn("Could not write behind the replacement of {} {}", getEntityName(), id, e);
+                         }
+                     });
 
+        return HttpResponse.accepted().header("Preference-Applied", RESPOND_ASYNC);
+    }
+
+    private static boolean prefers(String prefer, String preference)
+    {
+        if (prefer == null)
+        {
+            return false;
+        }
+
+        for (var token : prefer.split(","))
+        {
+            if (token.split(";")[0].trim().equalsIgnoreCase(preference))
+            {
+                return true;
+            }
+        }
+
+        return false;
     }
 
     /**
@@ -245,52 +983,57 @@ public class RestCrudEntityControllerFoundation<ID,IC,
      *
      * @param id the identifier for the resource. Not null.
      * @param mergePatchAsString the string containing the <em>RFC 7386</em> JSON merge Patch.
+     * @param ifMatch entity tags of the versions the client is patching. Null to patch any version.
      *
-     * @return Patched resource
+     * @return Patched resource. The {@value #WRITE_APPLIED_HEADER} header says whether anything was written.
      * @throws org.saltations.mre.common.application.CannotPatchEntity if TODO ?
      */
 
     @Patch(value = "/{id}", consumes = {"application/merge-patch+json"})
-    public Mono<MutableHttpResponse<?>> patch(@NotNull ID id, @NotNull @NotBlank @Body String mergePatchAsString)
+    @ApiResponse(responseCode = "412",
+            description = "Changed since the version identified by If-Match"
+    )
+    public Mono<MutableHttpResponse<?>> patch(@NotNull ID id, @NotNull @NotBlank @Body String mergePatchAsString,
+                                              @Nullable @Header(HttpHeaders.IF_MATCH) String ifMatch)
             throws CannotPatchEntity
     {
-        E patched;
+        return onWriteLane(() -> {
+            WriteResult<E> patched;
 
-        try
-        {
-            if (entityService.doesNotExist(id))
+            var expectedVersion = expectedVersion(id, ifMatch);
+
+            try
             {
-                throw new CannotFindEntity(getEntityName(), id);
-            }
+                // Take the incoming patch and overlay it directly on top of the stored entity.
+                // Only the attributes that the patch actually changes are written.
 
-            // Take the incoming patch and overlay it on top of the retrieved entity.
+                var mergePatch = jsonMapper.readTree(mergePatchAsString);
 
-            var mergePatch = jsonMapper.readValue(mergePatchAsString, JsonMergePatch.class);
-            var retrieved = entityRepo.findById(id).orElseThrow();
-            var retrievedAsJsonNode = jsonMapper.readTree(jsonMapper.writeValueAsString(retrieved));
-            var updatedEntityAsString = jsonMapper.writeValueAsString(mergePatch.apply(retrievedAsJsonNode));
+                patched = entityService.serializeWrite(id, () -> entityService.modify(id, retrieved -> {
 
-            patched = jsonMapper.readValue(updatedEntityAsString, entityClass);
+                    var merged = mergePatcher.apply(mergePatch, retrieved);
 
-            // We will not save the updated entity if the patch puts it into an invalid state
+                    // We will not save the updated entity if the patch puts it into an invalid state
 
-            var violations = validator.validate(patched);
+                    var violations = validator.validate(merged);
 
-            if (!violations.isEmpty())
+                    if (!violations.isEmpty())
+                    {
+                        throw new ConstraintViolationException(violations);
+                    }
+                }, expectedVersion));
+            }
+            catch (DomainProblemBase e)
             {
-                throw new ConstraintViolationException(violations);
+                throw createThrowableProblem(e);
+            }
+            catch (Exception e)
+            {
+                throw new CannotPatchEntity(e, getEntityName(), (Long) id);
             }
-        }
-        catch (DomainProblemBase e)
-        {
-            throw createThrowableProblem(e);
-        }
-        catch (Exception e)
-        {
-            throw new CannotPatchEntity(e, getEntityName(), (Long) id);
-        }
 
-        return Mono.just(HttpResponse.ok(patched));
+            return okWithWriteApplied(patched);
+        });
     }
 
     /**
@@ -300,18 +1043,23 @@ public class RestCrudEntityControllerFoundation<ID,IC,
      */
 
     @Delete("/{id}")
-    public HttpResponse<?> delete(@NotNull ID id)
+    public Mono<MutableHttpResponse<?>> delete(@NotNull ID id)
     {
-        try
-        {
-            entityService.delete(id);
-        }
-        catch (DomainProblemBase e)
-        {
-            throw createThrowableProblem(e);
-        }
+        return onWriteLane(() -> {
+            try
+            {
+                entityService.serializeWrite(id, () -> {
+                    entityService.delete(id);
+                    return null;
+                });
+            }
+            catch (DomainProblemBase e)
+            {
+                throw createThrowableProblem(e);
+            }
 
-        return HttpResponse.ok();
+            return HttpResponse.ok();
+        });
     }
 
 
@@ -322,6 +1070,16 @@ public class RestCrudEntityControllerFoundation<ID,IC,
                 .headers(headers -> headers.location(resolveLocationWithID(entity.getId())));
     }
 
+    @NonNull
+    private MutableHttpResponse<E> okWithWriteApplied(@NonNull WriteResult<E> result)
+    {
+        var response = HttpResponse
+                .ok(result.getEntity())
+                .header(WRITE_APPLIED_HEADER, String.valueOf(result.isWritten()));
+
+        return EntityValidators.applyIfPresent(EntityValidators.of(result.getEntity(), null), response);
+    }
+
     private URI resolveLocationWithID(ID id)
     {
         var base = uriNaming.resolveUri(this.getClass());
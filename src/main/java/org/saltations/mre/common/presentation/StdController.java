@@ -6,8 +6,6 @@ import java.lang.annotation.Inherited;
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
 
-import io.micronaut.scheduling.TaskExecutors;
-import io.micronaut.scheduling.annotation.ExecuteOn;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -15,14 +13,19 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import static java.lang.annotation.RetentionPolicy.RUNTIME;
 
 /**
- * Meta annotation for standard controllers. Used to specify common controller behavior such as standard error responses
+ * Meta annotation for standard controllers. Used to specify common controller behavior such as standard error responses.
+ * <p>
+ * Endpoints run on the event loop unless they say otherwise. {@link RestCrudEntityControllerFoundation} puts its
+ * blocking work on the {@link CrudExecutorFactory#CRUD crud} executor; other endpoints that block should be annotated
+ * with {@code @ExecuteOn(CrudExecutorFactory.CRUD)}. Requests are subject to the adaptive concurrency limit of the
+ * {@link ConcurrencyLimitFilter}, when it is enabled.
  */
 
 @Inherited
 @Documented
 @Retention(RUNTIME)
 @Target(ElementType.TYPE)
-@ExecuteOn(TaskExecutors.IO)
+@ConcurrencyLimited
 @ApiResponse(responseCode = "400",
         description = "Malformed request could not be understood by the server due to " +
                 "malformed syntax. The client SHOULD NOT repeat the request without modifications.",
@@ -46,5 +49,9 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
         description = "Some other error.",
         content = @Content(mediaType = "application/problem+json",schema = @Schema(allOf = ProblemSchema.class))
 )
+@ApiResponse(responseCode = "503",
+        description = "Overloaded. Too many requests are in progress; try again after the number of seconds in Retry-After.",
+        content = @Content(mediaType = "application/problem+json",schema = @Schema(allOf = ProblemSchema.class))
+)
 public @interface StdController {
 }
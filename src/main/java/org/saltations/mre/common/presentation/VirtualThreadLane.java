@@ -0,0 +1,154 @@
+package org.saltations.mre.common.presentation;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.micronaut.core.annotation.NonNull;
+
+/**
+ * Lane of a {@link Bulkhead} that runs each task on its own virtual thread, with the same bounds as a lane of platform
+ * threads.
+ * <p>
+ * At most {@code threads} tasks run at once and at most {@code queueSize} more wait (parked virtual threads, in
+ * arrival order) for one of them to finish. Work past that is rejected straight away.
+ */
+
+public class VirtualThreadLane extends AbstractExecutorService
+{
+    private final int threads;
+
+    private final int capacity;
+
+    private final Semaphore running;
+
+    private final Semaphore admitted;
+
+    private final ExecutorService executor;
+
+    private final LongAdder completed = new LongAdder();
+
+    /**
+     * Primary constructor
+     *
+     * @param threadPrefix prefix of the names of the virtual threads
+     * @param threads      number of tasks that may run at once
+     * @param queueSize    number of tasks that may wait to run
+     */
+
+    public VirtualThreadLane(@NonNull String threadPrefix, int threads, int queueSize)
+    {
+        this.threads = threads;
+        this.capacity = threads + queueSize;
+        this.running = new Semaphore(threads, true);
+        this.admitted = new Semaphore(capacity);
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(threadPrefix, 0).factory());
+    }
+
+    @Override
+    public void execute(@NonNull Runnable task)
+    {
+        if (!admitted.tryAcquire())
+        {
+            throw new RejectedExecutionException("Lane is running " + threads + " tasks and has " + (capacity - threads) + " waiting");
+        }
+
+        try
+        {
+            executor.execute(() -> run(task));
+        }
+        catch (RejectedExecutionException e)
+        {
+            admitted.release();
+            throw e;
+        }
+    }
+
+    private void run(Runnable task)
+    {
+        try
+        {
+            running.acquire();
+        }
+        catch (InterruptedException e)
+        {
+            admitted.release();
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        try
+        {
+            task.run();
+        }
+        finally
+        {
+            completed.increment();
+            running.release();
+            admitted.release();
+        }
+    }
+
+    public int getThreads()
+    {
+        return threads;
+    }
+
+    /**
+     * @return number of tasks running
+     */
+
+    public int getActiveCount()
+    {
+        return threads - running.availablePermits();
+    }
+
+    /**
+     * @return number of tasks waiting to run
+     */
+
+    public int getQueuedCount()
+    {
+        return Math.max(0, capacity - admitted.availablePermits() - getActiveCount());
+    }
+
+    public long getCompletedTaskCount()
+    {
+        return completed.sum();
+    }
+
+    @Override
+    public void shutdown()
+    {
+        executor.shutdown();
+    }
+
+    @Override
+    public @NonNull List<Runnable> shutdownNow()
+    {
+        return executor.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown()
+    {
+        return executor.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated()
+    {
+        return executor.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, @NonNull TimeUnit unit) throws InterruptedException
+    {
+        return executor.awaitTermination(timeout, unit);
+    }
+}
@@ -0,0 +1,54 @@
+package org.saltations.mre.common.presentation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import io.micronaut.management.endpoint.annotation.Endpoint;
+import io.micronaut.management.endpoint.annotation.Read;
+import org.saltations.mre.common.application.CrudEntityServiceFoundation;
+
+/**
+ * Management endpoint ({@code /write-locks}) with the contention statistics of the in-process write locks of the
+ * entity services that serialize writes.
+ */
+
+@Endpoint(id = "write-locks")
+public class WriteLockEndpoint
+{
+    private final List<CrudEntityServiceFoundation<?, ?, ?, ?, ?, ?>> services;
+
+    public WriteLockEndpoint(List<CrudEntityServiceFoundation<?, ?, ?, ?, ?, ?>> services)
+    {
+        this.services = services;
+    }
+
+    /**
+     * @return statistics by entity name
+     */
+
+    @Read
+    public Map<String, Map<String, Number>> statistics()
+    {
+        var statistics = new TreeMap<String, Map<String, Number>>();
+
+        for (var service : services)
+        {
+            var lock = service.getWriteLock();
+
+            if (lock != null)
+            {
+                statistics.put(service.getEntityName(), Map.of(
+                        "stripes", lock.getStripeCount(),
+                        "acquisitions", lock.getAcquisitions(),
+                        "contended-acquisitions", lock.getContendedAcquisitions(),
+                        "timeouts", lock.getTimeouts(),
+                        "waiting", lock.getWaiting(),
+                        "total-wait-millis", lock.getTotalWaitMillis(),
+                        "longest-wait-millis", lock.getLongestWaitMillis()));
+            }
+        }
+
+        return statistics;
+    }
+}
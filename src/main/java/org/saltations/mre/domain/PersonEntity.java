@@ -4,9 +4,9 @@ import java.time.OffsetDateTime;
 
 import io.micronaut.data.annotation.DateCreated;
 import io.micronaut.data.annotation.DateUpdated;
-import io.micronaut.data.annotation.GeneratedValue;
 import io.micronaut.data.annotation.Id;
 import io.micronaut.data.annotation.MappedEntity;
+import io.micronaut.data.annotation.Version;
 import io.micronaut.serde.annotation.Serdeable;
 import io.micronaut.serde.config.naming.SnakeCaseStrategy;
 import lombok.AllArgsConstructor;
@@ -17,6 +17,7 @@ import lombok.ToString;
 import lombok.With;
 import lombok.experimental.SuperBuilder;
 import org.saltations.mre.common.domain.Entity;
+import org.saltations.mre.common.domain.Versioned;
 import org.saltations.mre.common.domain.HasChangeDates;
 
 /**
@@ -32,10 +33,13 @@ import org.saltations.mre.common.domain.HasChangeDates;
 @MappedEntity("person")
 @Serdeable(naming = SnakeCaseStrategy.class)
 @SuperBuilder(builderMethodName = "of", buildMethodName = "done", toBuilder = true)
-public class PersonEntity extends PersonCore implements Entity<Long>, HasChangeDates
+public class PersonEntity extends PersonCore implements Entity<Long>, HasChangeDates, Versioned
 {
+    /**
+     * Assigned from a pooled sequence before insert (see {@code PersonIdAssigner}) so that inserts can be batched
+     */
+
     @Id
-    @GeneratedValue
     private Long id;
 
     @DateCreated
@@ -43,4 +47,7 @@ public class PersonEntity extends PersonCore implements Entity<Long>, HasChangeD
 
     @DateUpdated
     private OffsetDateTime updated;
+
+    @Version
+    private Long version;
 }
@@ -36,6 +36,7 @@ public interface PersonMapper extends EntityMapper<PersonCore, PersonEntity>
     @Mapping(target = "id",  ignore = true)
     @Mapping(target = "created",  ignore = true)
     @Mapping(target = "updated",  ignore = true)
+    @Mapping(target = "version",  ignore = true)
     PersonEntity createEntity(PersonCore proto);
 
     /**
@@ -46,9 +47,6 @@ public interface PersonMapper extends EntityMapper<PersonCore, PersonEntity>
      * @return List of valid PersonEntity
      */
 
-    @Mapping(target = "id",  ignore = true)
-    @Mapping(target = "created",  ignore = true)
-    @Mapping(target = "updated",  ignore = true)
     List<PersonEntity> createEntities(List<PersonCore> protos);
 
     /**
@@ -63,9 +61,11 @@ public interface PersonMapper extends EntityMapper<PersonCore, PersonEntity>
     @Mapping(target = "id",  ignore = true)
     @Mapping(target = "created",  ignore = true)
     @Mapping(target = "updated",  ignore = true)
+    @Mapping(target = "version",  ignore = true)
     @Mapping(target = "withId",  ignore = true)
     @Mapping(target = "withCreated",  ignore = true)
     @Mapping(target = "withUpdated",  ignore = true)
+    @Mapping(target = "withVersion",  ignore = true)
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
     PersonEntity patchEntity(PersonCore patch, @MappingTarget PersonEntity entity);
 
@@ -8,6 +8,7 @@ import io.micronaut.data.annotation.DateCreated;
 import io.micronaut.data.annotation.DateUpdated;
 import io.micronaut.data.annotation.Id;
 import io.micronaut.data.annotation.MappedEntity;
+import io.micronaut.data.annotation.Version;
 import io.micronaut.serde.annotation.Serdeable;
 import io.micronaut.serde.config.naming.SnakeCaseStrategy;
 import lombok.AllArgsConstructor;
@@ -18,6 +19,8 @@ import lombok.ToString;
 import lombok.With;
 import lombok.experimental.SuperBuilder;
 import org.saltations.mre.common.domain.Entity;
+import org.saltations.mre.common.domain.HasChangeDates;
+import org.saltations.mre.common.domain.Versioned;
 
 /**
  *  Identifiable, persistable Person
@@ -32,7 +35,7 @@ import org.saltations.mre.common.domain.Entity;
 @MappedEntity("place")
 @Serdeable(naming = SnakeCaseStrategy.class)
 @SuperBuilder(builderMethodName = "of", buildMethodName = "done", toBuilder = true)
-public class PlaceEntity extends PlaceCore implements Entity<UUID>
+public class PlaceEntity extends PlaceCore implements Entity<UUID>, HasChangeDates, Versioned
 {
     @Id
     @AutoPopulated
@@ -43,4 +46,7 @@ public class PlaceEntity extends PlaceCore implements Entity<UUID>
 
     @DateUpdated
     private OffsetDateTime updated;
+
+    @Version
+    private Long version;
 }
@@ -36,6 +36,7 @@ public interface PlaceMapper extends EntityMapper<PlaceCore, PlaceEntity>
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "created",  ignore = true)
     @Mapping(target = "updated",  ignore = true)
+    @Mapping(target = "version",  ignore = true)
     PlaceEntity createEntity(PlaceCore proto);
 
     /**
@@ -46,9 +47,6 @@ public interface PlaceMapper extends EntityMapper<PlaceCore, PlaceEntity>
      * @return List of valid PlaceEntity
      */
 
-    @Mapping(target = "id",  ignore = true)
-    @Mapping(target = "created",  ignore = true)
-    @Mapping(target = "updated",  ignore = true)
     List<PlaceEntity> createEntities(List<PlaceCore> protos);
 
     /**
@@ -63,9 +61,11 @@ public interface PlaceMapper extends EntityMapper<PlaceCore, PlaceEntity>
     @Mapping(target = "id",  ignore = true)
     @Mapping(target = "created",  ignore = true)
     @Mapping(target = "updated",  ignore = true)
+    @Mapping(target = "version",  ignore = true)
     @Mapping(target = "withId",  ignore = true)
     @Mapping(target = "withCreated",  ignore = true)
     @Mapping(target = "withUpdated",  ignore = true)
+    @Mapping(target = "withVersion",  ignore = true)
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
     PlaceEntity patchEntity(PlaceCore patch, @MappingTarget PlaceEntity entity);
 
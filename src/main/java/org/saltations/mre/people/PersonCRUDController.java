@@ -1,15 +1,24 @@
 package org.saltations.mre.people;
 
+import java.util.concurrent.ExecutorService;
+
+import io.micronaut.context.annotation.Property;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.core.annotation.Nullable;
 import io.micronaut.http.MediaType;
 import io.micronaut.http.annotation.Controller;
+import io.micronaut.json.JsonMapper;
 import io.micronaut.validation.validator.Validator;
 import io.micronaut.web.router.RouteBuilder;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.inject.Inject;
+import jakarta.inject.Named;
 import lombok.extern.slf4j.Slf4j;
 import org.saltations.mre.domain.Person;
 import org.saltations.mre.domain.PersonCore;
 import org.saltations.mre.domain.PersonEntity;
+import org.saltations.mre.common.presentation.BulkheadConfiguration;
+import org.saltations.mre.common.presentation.CrudExecutorFactory;
 import org.saltations.mre.common.presentation.RestCrudEntityControllerFoundation;
 import org.saltations.mre.common.presentation.StdController;
 import org.saltations.mre.domain.PersonMapper;
@@ -30,9 +39,30 @@ import org.saltations.mre.domain.PersonMapper;
 public class PersonCRUDController extends RestCrudEntityControllerFoundation<Long, Person, PersonCore, PersonEntity, PersonRepo, PersonMapper, PersonCRUDService>
 {
     @Inject
-    public PersonCRUDController(RouteBuilder.UriNamingStrategy uriNaming, PersonCRUDService entityService, PersonRepo entityRepo, PersonMapper entityMapper, Validator validator)
+    public PersonCRUDController(RouteBuilder.UriNamingStrategy uriNaming, PersonCRUDService entityService, PersonRepo entityRepo, PersonMapper entityMapper, Validator validator,
+                                @Named(CrudExecutorFactory.CRUD) ExecutorService crudExecutor,
+                                @Value("${crud.execution:io}") CrudExecutorFactory.ExecutionMode execution,
+                                JsonMapper jsonMapper,
+                                @Nullable @Property(name = "response-caches.people.max-bytes") Long responseCacheMaxBytes,
+                                @Nullable PersonReactiveService reactiveService,
+                                @Nullable @Named("people") BulkheadConfiguration bulkhead)
     {
-        super(uriNaming, PersonEntity.class, entityService, entityRepo, entityMapper, validator);
+        super(uriNaming, PersonEntity.class, entityService, entityRepo, entityMapper, validator, crudExecutor);
+
+        if (responseCacheMaxBytes != null)
+        {
+            enableResponseCache(jsonMapper, responseCacheMaxBytes);
+        }
+
+        if (reactiveService != null)
+        {
+            enableReactiveReads(reactiveService);
+        }
+
+        if (bulkhead != null)
+        {
+            enableBulkhead(bulkhead, execution);
+        }
     }
 
     @Override
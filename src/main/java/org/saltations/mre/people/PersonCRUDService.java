@@ -1,20 +1,68 @@
 package org.saltations.mre.people;
 
+import java.sql.Connection;
+
+import io.micronaut.cache.SyncCache;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.transaction.TransactionOperations;
 import io.micronaut.validation.validator.Validator;
 import jakarta.inject.Inject;
+import jakarta.inject.Named;
 import jakarta.inject.Singleton;
 import org.saltations.mre.domain.Person;
 import org.saltations.mre.domain.PersonCore;
 import org.saltations.mre.domain.PersonEntity;
 import org.saltations.mre.common.application.CrudEntityServiceFoundation;
+import org.saltations.mre.common.application.EntityInvalidationBus;
+import org.saltations.mre.common.application.GroupCommitConfiguration;
+import org.saltations.mre.common.application.KnownIdFilterConfiguration;
+import org.saltations.mre.common.application.WriteBehindConfiguration;
+import org.saltations.mre.common.application.WriteSerializationConfiguration;
 import org.saltations.mre.domain.PersonMapper;
 
 @Singleton
 public class PersonCRUDService extends CrudEntityServiceFoundation<Long, Person, PersonCore, PersonEntity, PersonRepo, PersonMapper>
 {
     @Inject
-    public PersonCRUDService(PersonRepo repo, PersonMapper mapper, Validator validator)
+    public PersonCRUDService(PersonRepo repo, PersonMapper mapper, Validator validator,
+                             TransactionOperations<Connection> transactions,
+                             @Nullable @Named("people") SyncCache<?> cache,
+                             @Nullable @Named("people") KnownIdFilterConfiguration idFilter,
+                             @Nullable EntityInvalidationBus invalidationBus,
+                             @Nullable @Named("people") WriteSerializationConfiguration writeSerialization,
+                             @Nullable @Named("people") WriteBehindConfiguration writeBehind,
+                             @Nullable @Named("people") GroupCommitConfiguration groupCommit)
     {
-        super(PersonEntity.class, repo, mapper, validator);
+        super(PersonEntity.class, repo, mapper, validator, transactions);
+
+        if (cache != null)
+        {
+            enableCaching(cache);
+        }
+
+        if (idFilter != null)
+        {
+            enableKnownIdFilter(idFilter);
+        }
+
+        if (invalidationBus != null)
+        {
+            enableClusterInvalidation(invalidationBus);
+        }
+
+        if (writeSerialization != null)
+        {
+            enableWriteSerialization(writeSerialization);
+        }
+
+        if (writeBehind != null)
+        {
+            enableWriteBehind(writeBehind);
+        }
+
+        if (groupCommit != null)
+        {
+            enableGroupCommit(groupCommit);
+        }
     }
 }
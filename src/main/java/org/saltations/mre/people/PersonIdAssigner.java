@@ -0,0 +1,43 @@
+package org.saltations.mre.people;
+
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.data.event.listeners.PrePersistEventListener;
+import jakarta.inject.Provider;
+import jakarta.inject.Singleton;
+import org.saltations.mre.common.application.PooledIdAllocator;
+import org.saltations.mre.domain.PersonEntity;
+
+/**
+ * Gives every person about to be inserted an identifier from the pooled {@code person_id_pool_seq} sequence, unless
+ * it already has one.
+ */
+
+@Singleton
+public class PersonIdAssigner implements PrePersistEventListener<PersonEntity>
+{
+    /**
+     * Must match the increment of {@code person_id_pool_seq}
+     */
+
+    public static final int BLOCK_SIZE = 50;
+
+    private final PooledIdAllocator allocator;
+
+    public PersonIdAssigner(Provider<PersonRepo> repo)
+    {
+        // The repository is resolved lazily because it publishes the events this listener receives
+
+        this.allocator = new PooledIdAllocator(BLOCK_SIZE, () -> repo.get().nextIdBlock());
+    }
+
+    @Override
+    public boolean prePersist(@NonNull PersonEntity person)
+    {
+        if (person.getId() == null)
+        {
+            person.setId(allocator.next());
+        }
+
+        return true;
+    }
+}
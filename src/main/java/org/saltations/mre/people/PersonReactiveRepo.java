@@ -0,0 +1,32 @@
+package org.saltations.mre.people;
+
+import java.util.Collection;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.data.annotation.Query;
+import io.micronaut.data.annotation.TypeDef;
+import io.micronaut.data.model.DataType;
+import io.micronaut.data.model.query.builder.sql.Dialect;
+import io.micronaut.data.r2dbc.annotation.R2dbcRepository;
+import org.saltations.mre.common.application.ReactiveCrudEntityRepo;
+import org.saltations.mre.domain.PersonEntity;
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking (R2DBC) repository for the Person entity. Only present when {@code crud.stack} is {@code r2dbc}.
+ */
+
+@R2dbcRepository(dialect = Dialect.POSTGRES)
+@Requires(property = "crud.stack", value = "r2dbc")
+public interface PersonReactiveRepo extends ReactiveCrudEntityRepo<Long, PersonEntity>
+{
+    @Override
+    default Flux<PersonEntity> findAllByIdIn(@NonNull Collection<Long> ids)
+    {
+        return findAllByIdArray(ids.toArray(Long[]::new));
+    }
+
+    @Query("SELECT * FROM person WHERE id = ANY(:ids)")
+    Flux<PersonEntity> findAllByIdArray(@TypeDef(type = DataType.LONG_ARRAY) Long[] ids);
+}
@@ -0,0 +1,20 @@
+package org.saltations.mre.people;
+
+import io.micronaut.context.annotation.Requires;
+import jakarta.inject.Singleton;
+import org.saltations.mre.common.application.ReactiveCrudEntityServiceFoundation;
+import org.saltations.mre.domain.PersonEntity;
+
+/**
+ * Non-blocking reads of people. Only present when {@code crud.stack} is {@code r2dbc}.
+ */
+
+@Singleton
+@Requires(property = "crud.stack", value = "r2dbc")
+public class PersonReactiveService extends ReactiveCrudEntityServiceFoundation<Long, PersonEntity, PersonReactiveRepo>
+{
+    public PersonReactiveService(PersonReactiveRepo repo)
+    {
+        super(repo);
+    }
+}
@@ -1,8 +1,17 @@
 package org.saltations.mre.people;
 
+import java.util.List;
+import java.util.Optional;
+
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.data.annotation.Query;
+import io.micronaut.data.annotation.TypeDef;
 import io.micronaut.data.jdbc.annotation.JdbcRepository;
+import io.micronaut.data.model.DataType;
 import io.micronaut.data.model.query.builder.sql.Dialect;
 import org.saltations.mre.domain.PersonEntity;
+import org.saltations.mre.common.application.ChangeStamp;
+import org.saltations.mre.common.application.ChangeStampLookup;
 import org.saltations.mre.common.application.CrudEntityRepoFoundation;
 
 /**
@@ -10,6 +19,36 @@ import org.saltations.mre.common.application.CrudEntityRepoFoundation;
  */
 
 @JdbcRepository(dialect = Dialect.POSTGRES)
-public abstract class PersonRepo extends CrudEntityRepoFoundation<Long, PersonEntity>
+public abstract class PersonRepo extends CrudEntityRepoFoundation<Long, PersonEntity> implements ChangeStampLookup<Long>
 {
+    @Override
+    public List<PersonEntity> findAllByIdIn(@NonNull Iterable<Long> ids)
+    {
+        return findAllByIdArray(toLongArray(ids));
+    }
+
+    @Override
+    public void deleteByIdIn(@NonNull Iterable<Long> ids)
+    {
+        deleteByIdArray(toLongArray(ids));
+    }
+
+    @Query("SELECT * FROM person WHERE id = ANY(:ids)")
+    protected abstract List<PersonEntity> findAllByIdArray(@TypeDef(type = DataType.LONG_ARRAY) long[] ids);
+
+    @Query("DELETE FROM person WHERE id = ANY(:ids)")
+    protected abstract void deleteByIdArray(@TypeDef(type = DataType.LONG_ARRAY) long[] ids);
+
+    /**
+     * Reserves the next block of {@link PersonIdAssigner#BLOCK_SIZE} identifiers.
+     *
+     * @return the first identifier of the block
+     */
+
+    @Query("SELECT nextval('person_id_pool_seq')")
+    public abstract long nextIdBlock();
+
+    @Override
+    @Query("SELECT version, updated FROM person WHERE id = :id")
+    public abstract Optional<ChangeStamp> findChangeStampById(@NonNull Long id);
 }
@@ -1,14 +1,22 @@
 package org.saltations.mre.places;
 
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
 
+import io.micronaut.context.annotation.Property;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.core.annotation.Nullable;
 import io.micronaut.http.MediaType;
 import io.micronaut.http.annotation.Controller;
+import io.micronaut.json.JsonMapper;
 import io.micronaut.validation.validator.Validator;
 import io.micronaut.web.router.RouteBuilder;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.inject.Inject;
+import jakarta.inject.Named;
 import lombok.extern.slf4j.Slf4j;
+import org.saltations.mre.common.presentation.BulkheadConfiguration;
+import org.saltations.mre.common.presentation.CrudExecutorFactory;
 import org.saltations.mre.common.presentation.RestCrudEntityControllerFoundation;
 import org.saltations.mre.common.presentation.StdController;
 import org.saltations.mre.domain.Place;
@@ -27,9 +35,30 @@ import org.saltations.mre.domain.PlaceMapper;
 public class PlaceCRUDController extends RestCrudEntityControllerFoundation<UUID, Place, PlaceCore, PlaceEntity, PlaceRepo, PlaceMapper, PlaceCRUDService>
 {
     @Inject
-    public PlaceCRUDController(RouteBuilder.UriNamingStrategy uriNaming, PlaceCRUDService entityService, PlaceRepo entityRepo, PlaceMapper entityMapper, Validator validator)
+    public PlaceCRUDController(RouteBuilder.UriNamingStrategy uriNaming, PlaceCRUDService entityService, PlaceRepo entityRepo, PlaceMapper entityMapper, Validator validator,
+                               @Named(CrudExecutorFactory.CRUD) ExecutorService crudExecutor,
+                               @Value("${crud.execution:io}") CrudExecutorFactory.ExecutionMode execution,
+                               JsonMapper jsonMapper,
+                               @Nullable @Property(name = "response-caches.places.max-bytes") Long responseCacheMaxBytes,
+                               @Nullable PlaceReactiveService reactiveService,
+                               @Nullable @Named("places") BulkheadConfiguration bulkhead)
     {
-        super(uriNaming, PlaceEntity.class, entityService, entityRepo, entityMapper, validator);
+        super(uriNaming, PlaceEntity.class, entityService, entityRepo, entityMapper, validator, crudExecutor);
+
+        if (responseCacheMaxBytes != null)
+        {
+            enableResponseCache(jsonMapper, responseCacheMaxBytes);
+        }
+
+        if (reactiveService != null)
+        {
+            enableReactiveReads(reactiveService);
+        }
+
+        if (bulkhead != null)
+        {
+            enableBulkhead(bulkhead, execution);
+        }
     }
 
     @Override
@@ -1,11 +1,20 @@
 package org.saltations.mre.places;
 
+import java.sql.Connection;
 import java.util.UUID;
 
+import io.micronaut.cache.SyncCache;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.transaction.TransactionOperations;
 import io.micronaut.validation.validator.Validator;
 import jakarta.inject.Inject;
+import jakarta.inject.Named;
 import jakarta.inject.Singleton;
 import org.saltations.mre.common.application.CrudEntityServiceFoundation;
+import org.saltations.mre.common.application.EntityInvalidationBus;
+import org.saltations.mre.common.application.KnownIdFilterConfiguration;
+import org.saltations.mre.common.application.LookupBatchingConfiguration;
+import org.saltations.mre.common.application.WriteSerializationConfiguration;
 import org.saltations.mre.domain.Place;
 import org.saltations.mre.domain.PlaceCore;
 import org.saltations.mre.domain.PlaceEntity;
@@ -15,8 +24,39 @@ import org.saltations.mre.domain.PlaceMapper;
 public class PlaceCRUDService extends CrudEntityServiceFoundation<UUID, Place, PlaceCore, PlaceEntity, PlaceRepo, PlaceMapper>
 {
     @Inject
-    public PlaceCRUDService(PlaceRepo repo, PlaceMapper mapper, Validator validator)
+    public PlaceCRUDService(PlaceRepo repo, PlaceMapper mapper, Validator validator,
+                            TransactionOperations<Connection> transactions,
+                            @Nullable @Named("places") SyncCache<?> cache,
+                            @Nullable @Named("places") KnownIdFilterConfiguration idFilter,
+                            @Nullable EntityInvalidationBus invalidationBus,
+                            @Nullable @Named("places") WriteSerializationConfiguration writeSerialization,
+                            @Nullable @Named("places") LookupBatchingConfiguration lookupBatching)
     {
-        super(PlaceEntity.class, repo, mapper, validator);
+        super(PlaceEntity.class, repo, mapper, validator, transactions);
+
+        if (cache != null)
+        {
+            enableCaching(cache);
+        }
+
+        if (idFilter != null)
+        {
+            enableKnownIdFilter(idFilter);
+        }
+
+        if (invalidationBus != null)
+        {
+            enableClusterInvalidation(invalidationBus);
+        }
+
+        if (writeSerialization != null)
+        {
+            enableWriteSerialization(writeSerialization);
+        }
+
+        if (lookupBatching != null)
+        {
+            enableLookupBatching(lookupBatching);
+        }
     }
 }
@@ -0,0 +1,33 @@
+package org.saltations.mre.places;
+
+import java.util.Collection;
+import java.util.UUID;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.data.annotation.Query;
+import io.micronaut.data.annotation.TypeDef;
+import io.micronaut.data.model.DataType;
+import io.micronaut.data.model.query.builder.sql.Dialect;
+import io.micronaut.data.r2dbc.annotation.R2dbcRepository;
+import org.saltations.mre.common.application.ReactiveCrudEntityRepo;
+import org.saltations.mre.domain.PlaceEntity;
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking (R2DBC) repository for the Place entity. Only present when {@code crud.stack} is {@code r2dbc}.
+ */
+
+@R2dbcRepository(dialect = Dialect.POSTGRES)
+@Requires(property = "crud.stack", value = "r2dbc")
+public interface PlaceReactiveRepo extends ReactiveCrudEntityRepo<UUID, PlaceEntity>
+{
+    @Override
+    default Flux<PlaceEntity> findAllByIdIn(@NonNull Collection<UUID> ids)
+    {
+        return findAllByIdArray(ids.stream().map(UUID::toString).toArray(String[]::new));
+    }
+
+    @Query("SELECT * FROM place WHERE id = ANY(CAST(:ids AS uuid[]))")
+    Flux<PlaceEntity> findAllByIdArray(@TypeDef(type = DataType.STRING_ARRAY) String[] ids);
+}
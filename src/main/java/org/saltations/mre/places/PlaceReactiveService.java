@@ -0,0 +1,22 @@
+package org.saltations.mre.places;
+
+import java.util.UUID;
+
+import io.micronaut.context.annotation.Requires;
+import jakarta.inject.Singleton;
+import org.saltations.mre.common.application.ReactiveCrudEntityServiceFoundation;
+import org.saltations.mre.domain.PlaceEntity;
+
+/**
+ * Non-blocking reads of places. Only present when {@code crud.stack} is {@code r2dbc}.
+ */
+
+@Singleton
+@Requires(property = "crud.stack", value = "r2dbc")
+public class PlaceReactiveService extends ReactiveCrudEntityServiceFoundation<UUID, PlaceEntity, PlaceReactiveRepo>
+{
+    public PlaceReactiveService(PlaceReactiveRepo repo)
+    {
+        super(repo);
+    }
+}
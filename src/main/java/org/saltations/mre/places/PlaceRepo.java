@@ -1,13 +1,42 @@
 package org.saltations.mre.places;
 
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.data.annotation.Query;
+import io.micronaut.data.annotation.TypeDef;
 import io.micronaut.data.jdbc.annotation.JdbcRepository;
+import io.micronaut.data.model.DataType;
 import io.micronaut.data.model.query.builder.sql.Dialect;
 import org.saltations.mre.domain.PlaceEntity;
+import org.saltations.mre.common.application.ChangeStamp;
+import org.saltations.mre.common.application.ChangeStampLookup;
 import org.saltations.mre.common.application.CrudEntityRepoFoundation;
 
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @JdbcRepository(dialect = Dialect.POSTGRES)
-public abstract class PlaceRepo extends CrudEntityRepoFoundation<UUID, PlaceEntity>
+public abstract class PlaceRepo extends CrudEntityRepoFoundation<UUID, PlaceEntity> implements ChangeStampLookup<UUID>
 {
+    @Override
+    public List<PlaceEntity> findAllByIdIn(@NonNull Iterable<UUID> ids)
+    {
+        return findAllByIdArray(toStringArray(ids));
+    }
+
+    @Override
+    public void deleteByIdIn(@NonNull Iterable<UUID> ids)
+    {
+        deleteByIdArray(toStringArray(ids));
+    }
+
+    @Query("SELECT * FROM place WHERE id = ANY(CAST(:ids AS uuid[]))")
+    protected abstract List<PlaceEntity> findAllByIdArray(@TypeDef(type = DataType.STRING_ARRAY) String[] ids);
+
+    @Query("DELETE FROM place WHERE id = ANY(CAST(:ids AS uuid[]))")
+    protected abstract void deleteByIdArray(@TypeDef(type = DataType.STRING_ARRAY) String[] ids);
+
+    @Override
+    @Query("SELECT version, updated FROM place WHERE id = :id")
+    public abstract Optional<ChangeStamp> findChangeStampById(@NonNull UUID id);
 }
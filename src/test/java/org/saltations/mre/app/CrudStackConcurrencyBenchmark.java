@@ -0,0 +1,165 @@
+package org.saltations.mre.app;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.runtime.server.EmbeddedServer;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Compares how the ways of running the CRUD endpoints scale with the number of requests in flight: JDBC on the IO
+ * thread pool, JDBC on virtual threads ({@code crud.execution=virtual}) and R2DBC reads ({@code crud.stack=r2dbc}).
+ * <p>
+ * Starts Postgres in a container and runs the application against it once per configuration, then fires pages of
+ * people at it from virtual threads with increasing concurrency. For each level it reports the throughput, the mean
+ * and 99th percentile latency and the peak number of platform threads in the JVM. Not a test (it does not run with {@code mvn test}); run its
+ * {@code main} from the IDE or with {@code exec:java -Dexec.classpathScope=test}.
+ */
+
+public class CrudStackConcurrencyBenchmark
+{
+    private static final int PEOPLE = 1000;
+
+    private static final int[] CONCURRENCY = {1, 8, 32, 128, 512, 1024};
+
+    private static final Duration RUN_FOR = Duration.ofSeconds(10);
+
+    public static void main(String[] args) throws Exception
+    {
+        try (var postgres = new PostgreSQLContainer<>("postgres:15"))
+        {
+            postgres.start();
+
+            var jdbc = Map.<String, Object>of(
+                    "datasources.default.url", postgres.getJdbcUrl(),
+                    "datasources.default.username", postgres.getUsername(),
+                    "datasources.default.password", postgres.getPassword(),
+                    "micronaut.server.port", -1,
+                    "crud.stack", "jdbc",
+                    "crud.execution", "io");
+
+            var virtual = new HashMap<>(jdbc);
+
+            virtual.put("crud.execution", "virtual");
+
+            var r2dbc = new HashMap<>(jdbc);
+
+            r2dbc.put("crud.stack", "r2dbc");
+            r2dbc.put("r2dbc.datasources.default.url", "r2dbc:postgresql://" + postgres.getHost() + ":" + postgres.getFirstMappedPort() + "/" + postgres.getDatabaseName());
+            r2dbc.put("r2dbc.datasources.default.username", postgres.getUsername());
+            r2dbc.put("r2dbc.datasources.default.password", postgres.getPassword());
+            r2dbc.put("r2dbc.datasources.default.dialect", "POSTGRES");
+
+            var runs = new LinkedHashMap<String, Map<String, Object>>();
+
+            runs.put("jdbc on io threads", jdbc);
+            runs.put("jdbc on virtual threads", virtual);
+            runs.put("r2dbc reads", r2dbc);
+
+            var seeded = false;
+
+            for (var run : runs.entrySet())
+            {
+                var properties = run.getValue();
+
+                try (var server = ApplicationContext.run(EmbeddedServer.class, properties))
+                {
+                    var base = server.getURI().resolve("/people/1");
+
+                    if (!seeded)
+                    {
+                        seed(base);
+                        seeded = true;
+                    }
+
+                    System.out.printf("%n%s%n%12s %12s %12s %12s %14s%n", run.getKey(), "concurrency", "req/s", "mean ms", "p99 ms", "peak threads");
+
+                    for (var concurrency : CONCURRENCY)
+                    {
+                        measure(base, concurrency);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void seed(URI base) throws Exception
+    {
+        var client = HttpClient.newHttpClient();
+
+        for (int i = 0; i < PEOPLE; i++)
+        {
+            var json = "{\"age\":" + (12 + i % 80) + ",\"firstName\":\"Samuel\",\"lastName\":\"Clemens\",\"emailAddress\":\"shmoil" + i + "@agiga.com\"}";
+            var request = HttpRequest.newBuilder(base)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(json))
+                    .build();
+
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+        }
+    }
+
+    private static void measure(URI base, int concurrency) throws Exception
+    {
+        var threads = ManagementFactory.getThreadMXBean();
+        var latencies = new ArrayList<Long>();
+        var page = HttpRequest.newBuilder(URI.create(base + "?limit=50")).GET().build();
+
+        threads.resetPeakThreadCount();
+
+        try (var callers = Executors.newVirtualThreadPerTaskExecutor())
+        {
+            var client = HttpClient.newBuilder().executor(callers).build();
+            var deadline = System.nanoTime() + RUN_FOR.toNanos();
+            var running = new ArrayList<Future<List<Long>>>();
+
+            for (int i = 0; i < concurrency; i++)
+            {
+                running.add(callers.submit(() -> {
+                    var own = new ArrayList<Long>();
+
+                    while (System.nanoTime() < deadline)
+                    {
+                        var start = System.nanoTime();
+
+                        client.send(page, HttpResponse.BodyHandlers.discarding());
+
+                        own.add(System.nanoTime() - start);
+                    }
+
+                    return own;
+                }));
+            }
+
+            for (var caller : running)
+            {
+                latencies.addAll(caller.get());
+            }
+        }
+
+        if (latencies.isEmpty())
+        {
+            return;
+        }
+
+        latencies.sort(null);
+
+        var mean = latencies.stream().mapToLong(Long::longValue).average().orElse(0);
+        var p99 = latencies.get((int) Math.ceil(latencies.size() * 0.99) - 1);
+
+        System.out.printf("%12d %12.0f %12.2f %12.2f %14d%n", concurrency, latencies.size() / (double) RUN_FOR.toSeconds(),
+                mean / 1_000_000, p99 / 1_000_000.0, threads.getPeakThreadCount());
+    }
+}
@@ -0,0 +1,186 @@
+package org.saltations.mre.application;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.saltations.endeavour.FailureDescription;
+import org.saltations.endeavour.Outcome;
+import org.saltations.endeavour.Outcomes;
+import org.saltations.mre.common.application.CreateGroupCommitter;
+import org.saltations.mre.domain.PersonCore;
+import org.saltations.mre.domain.PersonEntity;
+import org.saltations.mre.fixtures.ReplaceBDDCamelCase;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Confirms that concurrent creates are committed in groups and that every caller gets its own entity
+ */
+
+@DisplayNameGeneration(ReplaceBDDCamelCase.class)
+class CreateGroupCommitterTest
+{
+    private final List<List<PersonCore>> groupCreates = new CopyOnWriteArrayList<>();
+
+    private final List<PersonCore> singleCreates = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    private final ExecutorService callers = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void shutdown()
+    {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void commitsConcurrentCreatesTogether() throws Exception
+    {
+        var committer = new CreateGroupCommitter<PersonCore, PersonEntity>("person", this::createAll, this::create, Duration.ofMillis(50), 100, 2);
+        var start = new CountDownLatch(1);
+        var outcomes = new ArrayList<Future<Outcome<FailureDescription, PersonEntity>>>();
+
+        for (int i = 0; i < 8; i++)
+        {
+            var prototype = prototype("Person" + i);
+
+            outcomes.add(callers.submit(() -> {
+                start.await();
+                return committer.create(prototype);
+            }));
+        }
+
+        start.countDown();
+
+        for (int i = 0; i < 8; i++)
+        {
+            var created = outcomes.get(i).get().get();
+
+            assertEquals("Person" + i, created.getFirstName());
+            assertTrue(created.getId() > 0);
+        }
+
+        assertTrue(groupCreates.size() < 8, "Creates should have been grouped");
+        assertEquals(0, committer.getFallbacks());
+    }
+
+    @Test
+    void commitsAFullGroupStraightAway()
+    {
+        var committer = new CreateGroupCommitter<PersonCore, PersonEntity>("person", this::createAll, this::create, Duration.ofHours(1), 1, 2);
+
+        var created = committer.create(prototype("Alone")).get();
+
+        assertEquals("Alone", created.getFirstName());
+        assertEquals(1, groupCreates.size());
+    }
+
+    @Test
+    void retriesEachCreateOnItsOwnWhenTheGroupFails()
+    {
+        var committer = new CreateGroupCommitter<PersonCore, PersonEntity>("person", prototypes -> {
+            throw new IllegalStateException("Duplicate key");
+        }, this::create, Duration.ofMillis(1), 100, 2);
+
+        var created = committer.create(prototype("Retried")).get();
+
+        assertEquals("Retried", created.getFirstName());
+        assertEquals(1, singleCreates.size());
+        assertEquals(1, committer.getFallbacks());
+    }
+
+    @Test
+    void commitsTheNextGroupWhileASlowCommitIsRunning() throws Exception
+    {
+        var release = new CountDownLatch(1);
+
+        var committer = new CreateGroupCommitter<PersonCore, PersonEntity>("person", prototypes -> {
+            if (prototypes.get(0).getFirstName().equals("Slow"))
+            {
+                release.await();
+            }
+
+            return createAll(prototypes);
+        }, this::create, Duration.ofMillis(5), 100, 2);
+
+        var slow = callers.submit(() -> committer.create(prototype("Slow")));
+
+        Thread.sleep(50);
+
+        var fast = callers.submit(() -> committer.create(prototype("Fast")));
+
+        assertEquals("Fast", fast.get(5, TimeUnit.SECONDS).get().getFirstName());
+
+        release.countDown();
+
+        assertEquals("Slow", slow.get(5, TimeUnit.SECONDS).get().getFirstName());
+    }
+
+    @Test
+    void submitsWithoutWaitingForTheGroupToForm() throws Exception
+    {
+        var committer = new CreateGroupCommitter<PersonCore, PersonEntity>("person", this::createAll, this::create, Duration.ofHours(1), 3, 2);
+
+        // A single caller submits a whole group, which it could not do if each submit waited for its commit
+
+        var first = committer.submit(prototype("First"));
+        var second = committer.submit(prototype("Second"));
+
+        assertFalse(first.isDone());
+        assertFalse(second.isDone());
+
+        var third = committer.submit(prototype("Third"));
+
+        assertEquals("First", first.get(5, TimeUnit.SECONDS).get().getFirstName());
+        assertEquals("Second", second.get(5, TimeUnit.SECONDS).get().getFirstName());
+        assertEquals("Third", third.get(5, TimeUnit.SECONDS).get().getFirstName());
+        assertEquals(1, groupCreates.size());
+    }
+
+    private List<PersonEntity> createAll(List<PersonCore> prototypes)
+    {
+        groupCreates.add(prototypes);
+
+        return prototypes.stream().map(this::entityOf).toList();
+    }
+
+    private Outcome<FailureDescription, PersonEntity> create(PersonCore prototype)
+    {
+        singleCreates.add(prototype);
+
+        return Outcomes.succeed(entityOf(prototype));
+    }
+
+    private PersonEntity entityOf(PersonCore prototype)
+    {
+        var entity = new PersonEntity();
+
+        entity.setId(nextId.getAndIncrement());
+        entity.setFirstName(prototype.getFirstName());
+
+        return entity;
+    }
+
+    private static PersonCore prototype(String firstName)
+    {
+        var prototype = new PersonCore();
+
+        prototype.setFirstName(firstName);
+
+        return prototype;
+    }
+}
@@ -0,0 +1,155 @@
+package org.saltations.mre.application;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.saltations.mre.common.application.EntityLookupBatcher;
+import org.saltations.mre.domain.PlaceEntity;
+import org.saltations.mre.fixtures.ReplaceBDDCamelCase;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Confirms that concurrent lookups are coalesced and that every caller gets its own result
+ */
+
+@DisplayNameGeneration(ReplaceBDDCamelCase.class)
+class EntityLookupBatcherTest
+{
+    private final List<List<UUID>> bulkLookups = new CopyOnWriteArrayList<>();
+
+    private final ExecutorService callers = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void shutdown()
+    {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void resolvesAFullBatchWithOneBulkLookup() throws Exception
+    {
+        var batcher = new EntityLookupBatcher<UUID, PlaceEntity>("Place", this::lookup, Duration.ofSeconds(10), 4, 2);
+        var ids = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+
+        var results = findConcurrently(batcher, ids);
+
+        assertEquals(1, bulkLookups.size());
+        assertEquals(4, bulkLookups.get(0).size());
+
+        for (int i = 0; i < ids.size(); i++)
+        {
+            assertEquals(ids.get(i), results.get(i).orElseThrow().getId());
+        }
+    }
+
+    @Test
+    void sharesOneLookupForTheSameId() throws Exception
+    {
+        var batcher = new EntityLookupBatcher<UUID, PlaceEntity>("Place", this::lookup, Duration.ofMillis(500), 100, 2);
+        var id = UUID.randomUUID();
+
+        var results = findConcurrently(batcher, List.of(id, id, id));
+
+        assertEquals(1, bulkLookups.size());
+        assertEquals(List.of(id), bulkLookups.get(0));
+        results.forEach(result -> assertEquals(id, result.orElseThrow().getId()));
+    }
+
+    @Test
+    void returnsEmptyForMissingEntities()
+    {
+        var batcher = new EntityLookupBatcher<UUID, PlaceEntity>("Place", ids -> List.of(), Duration.ofMillis(1), 100, 2);
+
+        assertTrue(batcher.find(UUID.randomUUID()).isEmpty());
+    }
+
+    @Test
+    void passesLookupFailuresToEveryCaller()
+    {
+        var batcher = new EntityLookupBatcher<UUID, PlaceEntity>("Place", ids -> { throw new IllegalStateException("boom"); }, Duration.ofMillis(1), 100, 2);
+
+        assertThrows(IllegalStateException.class, () -> batcher.find(UUID.randomUUID()));
+    }
+
+    @Test
+    void resolvesTheNextBatchWhileASlowLookupIsRunning() throws Exception
+    {
+        var slow = UUID.randomUUID();
+        var release = new CountDownLatch(1);
+
+        var batcher = new EntityLookupBatcher<UUID, PlaceEntity>("Place", ids -> {
+            if (ids.contains(slow))
+            {
+                try
+                {
+                    release.await();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            return lookup(ids);
+        }, Duration.ofMillis(5), 100, 2);
+
+        var slowLookup = callers.submit(() -> batcher.find(slow));
+
+        Thread.sleep(50);
+
+        var fast = UUID.randomUUID();
+
+        assertEquals(fast, callers.submit(() -> batcher.find(fast)).get(5, TimeUnit.SECONDS).orElseThrow().getId());
+
+        release.countDown();
+
+        assertEquals(slow, slowLookup.get(5, TimeUnit.SECONDS).orElseThrow().getId());
+    }
+
+    private List<Optional<PlaceEntity>> findConcurrently(EntityLookupBatcher<UUID, PlaceEntity> batcher, List<UUID> ids) throws Exception
+    {
+        var start = new CountDownLatch(1);
+        var futures = new ArrayList<Future<Optional<PlaceEntity>>>();
+
+        for (var id : ids)
+        {
+            futures.add(callers.submit(() -> {
+                start.await();
+                return batcher.find(id);
+            }));
+        }
+
+        start.countDown();
+
+        var results = new ArrayList<Optional<PlaceEntity>>();
+
+        for (var future : futures)
+        {
+            results.add(future.get());
+        }
+
+        return results;
+    }
+
+    private List<PlaceEntity> lookup(List<UUID> ids)
+    {
+        bulkLookups.add(List.copyOf(ids));
+
+        return ids.stream().map(id -> PlaceEntity.of().id(id).name("Place " + id).done()).toList();
+    }
+}
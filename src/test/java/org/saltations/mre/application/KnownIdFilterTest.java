@@ -0,0 +1,75 @@
+package org.saltations.mre.application;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.saltations.mre.common.application.KnownIdFilter;
+import org.saltations.mre.fixtures.ReplaceBDDCamelCase;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Confirms that the known id filter never gives false negatives and stays near its configured false positive rate
+ */
+
+@DisplayNameGeneration(ReplaceBDDCamelCase.class)
+class KnownIdFilterTest
+{
+    @Test
+    void mightContainEverythingUntilSeeded()
+    {
+        var filter = new KnownIdFilter<Long>(1000, 0.01);
+
+        assertTrue(filter.mightContain(42L));
+
+        filter.markSeeded();
+
+        assertFalse(filter.mightContain(42L));
+    }
+
+    @Test
+    void containsEveryAddedId()
+    {
+        var filter = new KnownIdFilter<Long>(10_000, 0.01);
+
+        for (long id = 1; id <= 10_000; id++)
+        {
+            filter.add(id);
+        }
+
+        filter.markSeeded();
+
+        for (long id = 1; id <= 10_000; id++)
+        {
+            assertTrue(filter.mightContain(id));
+        }
+    }
+
+    @Test
+    void staysNearTheConfiguredFalsePositiveRate()
+    {
+        var filter = new KnownIdFilter<UUID>(10_000, 0.01);
+
+        for (int i = 0; i < 10_000; i++)
+        {
+            filter.add(UUID.randomUUID());
+        }
+
+        filter.markSeeded();
+
+        var falsePositives = 0;
+
+        for (int i = 0; i < 10_000; i++)
+        {
+            if (filter.mightContain(UUID.randomUUID()))
+            {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 300, "False positives " + falsePositives);
+        assertTrue(filter.getEstimatedFalsePositiveRate() < 0.03);
+    }
+}
@@ -0,0 +1,106 @@
+package org.saltations.mre.application;
+
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.saltations.mre.common.application.PooledIdAllocator;
+import org.saltations.mre.fixtures.ReplaceBDDCamelCase;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Confirms that identifiers are handed out from blocks, that a block costs one sequence call and that reserving one
+ * does not pin virtual threads
+ */
+
+@DisplayNameGeneration(ReplaceBDDCamelCase.class)
+class PooledIdAllocatorTest
+{
+    @Test
+    void handsOutEveryIdOfABlockBeforeReservingAnother()
+    {
+        var sequence = new AtomicLong(1);
+        var allocator = new PooledIdAllocator(50, () -> sequence.getAndAdd(50));
+
+        for (long expected = 1; expected <= 120; expected++)
+        {
+            assertEquals(expected, allocator.next());
+        }
+
+        assertEquals(3, allocator.getBlocksReserved());
+    }
+
+    @Test
+    void neverHandsOutTheSameIdFromTwoAllocators()
+    {
+        // Two nodes sharing one sequence
+
+        var sequence = new AtomicLong(1);
+        var first = new PooledIdAllocator(10, () -> sequence.getAndAdd(10));
+        var second = new PooledIdAllocator(10, () -> sequence.getAndAdd(10));
+        var ids = new HashSet<Long>();
+
+        for (int i = 0; i < 100; i++)
+        {
+            assertTrue(ids.add(first.next()));
+            assertTrue(ids.add(second.next()));
+        }
+    }
+
+    @Test
+    void doesNotPinVirtualThreadsWhileReservingABlock() throws Exception
+    {
+        // Reserving a block is slow, so the other virtual threads park on the lock while it happens
+
+        var sequence = new AtomicLong(1);
+        var allocator = new PooledIdAllocator(10, () -> {
+            try
+            {
+                Thread.sleep(50);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+
+            return sequence.getAndAdd(10);
+        });
+
+        var dump = Files.createTempFile("pinning", ".jfr");
+
+        try (var recording = new Recording())
+        {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO);
+            recording.start();
+
+            try (var callers = Executors.newVirtualThreadPerTaskExecutor())
+            {
+                for (int i = 0; i < 100; i++)
+                {
+                    callers.submit(allocator::next);
+                }
+            }
+
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        try
+        {
+            assertTrue(RecordingFile.readAllEvents(dump).isEmpty(), "Virtual threads were pinned");
+            assertEquals(10, allocator.getBlocksReserved());
+        }
+        finally
+        {
+            Files.deleteIfExists(dump);
+        }
+    }
+}
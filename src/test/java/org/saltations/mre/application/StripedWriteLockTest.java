@@ -0,0 +1,95 @@
+package org.saltations.mre.application;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.saltations.mre.common.application.StripedWriteLock;
+import org.saltations.mre.fixtures.ReplaceBDDCamelCase;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Confirms that writes to the same id are serialized and that contention is counted
+ */
+
+@DisplayNameGeneration(ReplaceBDDCamelCase.class)
+class StripedWriteLockTest
+{
+    @Test
+    void roundsTheStripesUpToAPowerOfTwo()
+    {
+        assertEquals(1, new StripedWriteLock(1, Duration.ofSeconds(1)).getStripeCount());
+        assertEquals(4, new StripedWriteLock(3, Duration.ofSeconds(1)).getStripeCount());
+        assertEquals(256, new StripedWriteLock(256, Duration.ofSeconds(1)).getStripeCount());
+    }
+
+    @Test
+    void serializesWritesToTheSameId() throws Exception
+    {
+        var lock = new StripedWriteLock(16, Duration.ofSeconds(10));
+        var inside = new AtomicInteger();
+        var mostInside = new AtomicInteger();
+        var start = new CountDownLatch(1);
+
+        try (var executor = Executors.newFixedThreadPool(8))
+        {
+            var writes = new ArrayList<Future<Integer>>();
+
+            for (int i = 0; i < 8; i++)
+            {
+                writes.add(executor.submit(() -> {
+                    start.await();
+
+                    return lock.performExclusively(42L, () -> {
+                        mostInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                        Thread.sleep(20);
+                        return inside.decrementAndGet();
+                    });
+                }));
+            }
+
+            start.countDown();
+
+            for (var write : writes)
+            {
+                write.get(10, TimeUnit.SECONDS);
+            }
+        }
+
+        assertEquals(1, mostInside.get());
+        assertEquals(8, lock.getAcquisitions());
+        assertTrue(lock.getContendedAcquisitions() > 0);
+        assertEquals(0, lock.getTimeouts());
+    }
+
+    @Test
+    void goesAheadWithoutTheLockAfterTheMaximumWait() throws Exception
+    {
+        var lock = new StripedWriteLock(1, Duration.ofMillis(10));
+        var holding = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        try (var executor = Executors.newSingleThreadExecutor())
+        {
+            executor.submit(() -> lock.performExclusively(1L, () -> {
+                holding.countDown();
+                return release.await(10, TimeUnit.SECONDS);
+            }));
+
+            holding.await(10, TimeUnit.SECONDS);
+
+            assertEquals("written", lock.performExclusively(1L, () -> "written"));
+            assertEquals(1, lock.getTimeouts());
+
+            release.countDown();
+        }
+    }
+}
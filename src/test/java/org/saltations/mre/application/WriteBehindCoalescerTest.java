@@ -0,0 +1,167 @@
+package org.saltations.mre.application;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.saltations.mre.common.application.WriteBehindCoalescer;
+import org.saltations.mre.domain.PersonEntity;
+import org.saltations.mre.fixtures.ReplaceBDDCamelCase;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Confirms that bursts of updates of the same id are written once, last one wins, and that every caller hears back
+ */
+
+@DisplayNameGeneration(ReplaceBDDCamelCase.class)
+class WriteBehindCoalescerTest
+{
+    private final List<PersonEntity> writes = new CopyOnWriteArrayList<>();
+
+    @Test
+    void writesOnlyTheLastUpdateOfABurst() throws Exception
+    {
+        var coalescer = new WriteBehindCoalescer<Long, PersonEntity>("person", update -> {
+            writes.add(update);
+            return update;
+        }, Duration.ofMillis(50), 2);
+
+        var first = coalescer.submit(person(1L, "First"));
+        var second = coalescer.submit(person(1L, "Second"));
+        var other = coalescer.submit(person(2L, "Other"));
+        var third = coalescer.submit(person(1L, "Third"));
+
+        assertEquals("Third", first.get(5, TimeUnit.SECONDS).getFirstName());
+        assertEquals("Third", second.get(5, TimeUnit.SECONDS).getFirstName());
+        assertEquals("Third", third.get(5, TimeUnit.SECONDS).getFirstName());
+        assertEquals("Other", other.get(5, TimeUnit.SECONDS).getFirstName());
+
+        assertEquals(2, writes.size());
+        assertEquals(4, coalescer.getSubmitted());
+        assertEquals(2, coalescer.getWritten());
+    }
+
+    @Test
+    void failsEveryCallerOfAFailedWrite()
+    {
+        var coalescer = new WriteBehindCoalescer<Long, PersonEntity>("person", update -> {
+            throw new IllegalStateException("No database");
+        }, Duration.ofMillis(10), 2);
+
+        var first = coalescer.submit(person(1L, "First"));
+        var second = coalescer.submit(person(1L, "Second"));
+
+        var thrown = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+
+        assertInstanceOf(IllegalStateException.class, thrown.getCause());
+        assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void writesPendingUpdatesOnClose() throws Exception
+    {
+        var coalescer = new WriteBehindCoalescer<Long, PersonEntity>("person", update -> {
+            writes.add(update);
+            return update;
+        }, Duration.ofMillis(200), 2);
+
+        var pending = coalescer.submit(person(1L, "Pending"));
+
+        coalescer.close();
+
+        assertEquals("Pending", pending.get(5, TimeUnit.SECONDS).getFirstName());
+        assertEquals(1, writes.size());
+        assertThrows(ExecutionException.class, () -> coalescer.submit(person(2L, "Late")).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void writesOtherIdsWhileOneWriteIsSlow() throws Exception
+    {
+        var release = new CountDownLatch(1);
+
+        var coalescer = new WriteBehindCoalescer<Long, PersonEntity>("person", update -> {
+            if (update.getId() == 1L)
+            {
+                release.await();
+            }
+
+            return update;
+        }, Duration.ofMillis(10), 2);
+
+        var slow = coalescer.submit(person(1L, "Slow"));
+        var other = coalescer.submit(person(2L, "Other"));
+
+        assertEquals("Other", other.get(5, TimeUnit.SECONDS).getFirstName());
+
+        release.countDown();
+
+        assertEquals("Slow", slow.get(5, TimeUnit.SECONDS).getFirstName());
+    }
+
+    @Test
+    void neverOverlapsTheWritesOfOneId() throws Exception
+    {
+        var writing = new AtomicInteger();
+        var overlapped = new AtomicInteger();
+        var firstStarted = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        var coalescer = new WriteBehindCoalescer<Long, PersonEntity>("person", update -> {
+            if (writing.incrementAndGet() > 1)
+            {
+                overlapped.incrementAndGet();
+            }
+
+            try
+            {
+                if (update.getFirstName().equals("First"))
+                {
+                    firstStarted.countDown();
+                    release.await();
+                }
+
+                writes.add(update);
+                return update;
+            }
+            finally
+            {
+                writing.decrementAndGet();
+            }
+        }, Duration.ofMillis(10), 4);
+
+        var first = coalescer.submit(person(1L, "First"));
+
+        firstStarted.await(5, TimeUnit.SECONDS);
+
+        // The window of the second update closes while the first one is still being written
+
+        var second = coalescer.submit(person(1L, "Second"));
+
+        Thread.sleep(50);
+        release.countDown();
+
+        assertEquals("First", first.get(5, TimeUnit.SECONDS).getFirstName());
+        assertEquals("Second", second.get(5, TimeUnit.SECONDS).getFirstName());
+        assertEquals(List.of("First", "Second"), writes.stream().map(PersonEntity::getFirstName).toList());
+        assertEquals(0, overlapped.get());
+    }
+
+    private static PersonEntity person(Long id, String firstName)
+    {
+        var person = new PersonEntity();
+
+        person.setId(id);
+        person.setFirstName(firstName);
+
+        return person;
+    }
+}
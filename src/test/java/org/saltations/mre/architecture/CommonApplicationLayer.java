@@ -24,7 +24,9 @@ public class CommonApplicationLayer
 
     static final DescribedPredicate<JavaClass> areCommonApplicationDependencies = resideInAnyPackage(
             "com.fasterxml.jackson..",
-            "org.saltations.endeavour"
+            "org.saltations.endeavour",
+            "reactor.core..",
+            "org.reactivestreams.."
     );
 
     static final DescribedPredicate<JavaClass> areCommonApplicationAndBelow = areCommonApplication
@@ -12,7 +12,7 @@ import org.junit.jupiter.api.TestMethodOrder;
 import static com.tngtech.archunit.core.domain.JavaClass.Predicates.resideInAPackage;
 import static com.tngtech.archunit.core.domain.JavaClass.Predicates.resideInAnyPackage;
 import static com.tngtech.archunit.lang.syntax.ArchRuleDefinition.classes;
-import static org.saltations.mre.architecture.CommonDomainLayer.areCommonDomainAndBelow;
+import static org.saltations.mre.architecture.CommonApplicationLayer.areCommonApplicationAndBelow;
 
 @AnalyzeClasses(packages = "org.saltations.mre.common.infra", importOptions = {ImportOption.DoNotIncludeTests.class})
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
@@ -23,12 +23,13 @@ public class CommonInfraLayer
     );
 
     static final DescribedPredicate<JavaClass> areCommonInfraDependencies = resideInAnyPackage(
-            ""
+            "",
+            "org.postgresql.."    // Driver specific APIs (LISTEN/NOTIFY) live here rather than in the application layer
     );
 
     static final DescribedPredicate<JavaClass> areCommonInfraAndBelow = areCommonInfra
             .or(areCommonInfraDependencies)
-            .or(areCommonDomainAndBelow);
+            .or(areCommonApplicationAndBelow);
 
     @ArchTest
     static final ArchRule should_only_depend_on_itself_and_common_application_and_below =
@@ -26,7 +26,8 @@ public class CommonPresentationLayer
             "io.swagger..",     // TODO review of this needs to be in the _common_ presentation layer
             "org.zalando.problem..",     // TODO review of this needs to be in the _common_ presentation layer
             "com.github.fge..",         // TODO review of this needs to be in the _common_ presentation layer
-            "reactor.core.."            // TODO review of this needs to be in the _common_ presentation layer
+            "reactor.core..",           // TODO review of this needs to be in the _common_ presentation layer
+            "com.github.benmanes.caffeine.."    // TODO review of this needs to be in the _common_ presentation layer
     );
 
     static final DescribedPredicate<JavaClass> areCommonPresentationAndBelow = areCommonPresentation
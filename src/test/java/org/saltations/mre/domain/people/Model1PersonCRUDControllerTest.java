@@ -1,24 +1,53 @@
 package org.saltations.mre.domain.people;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micronaut.core.io.buffer.ByteBuffer;
+import io.micronaut.core.io.buffer.ReferenceCounted;
 import io.micronaut.http.HttpStatus;
 import io.micronaut.serde.ObjectMapper;
 import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
 import io.restassured.http.ContentType;
 import io.restassured.specification.RequestSpecification;
 import jakarta.inject.Inject;
+import jakarta.inject.Named;
 import org.junit.jupiter.api.DisplayNameGeneration;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.TestMethodOrder;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import org.saltations.mre.common.application.CrudEntityServiceFoundation;
+import org.saltations.mre.common.presentation.BulkheadConfiguration;
+import org.saltations.mre.common.presentation.RestCrudEntityControllerFoundation;
 import org.saltations.mre.domain.PersonMapper;
 import org.saltations.mre.domain.PersonEntity;
 import org.saltations.mre.fixtures.ReplaceBDDCamelCase;
+import org.saltations.mre.people.PersonCRUDController;
+import org.saltations.mre.people.PersonCRUDService;
 
 import static io.restassured.module.jsv.JsonSchemaValidator.matchesJsonSchemaInClasspath;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @MicronautTest
 @DisplayNameGeneration(ReplaceBDDCamelCase.class)
@@ -42,6 +71,16 @@ public class Model1PersonCRUDControllerTest
     @Inject 
     private ObjectMapper objMapper;
 
+    @Inject
+    private PersonCRUDController controller;
+
+    @Inject
+    private PersonCRUDService service;
+
+    @Inject
+    @Named("people")
+    private BulkheadConfiguration bulkhead;
+
     @Test
     @Order(2)
     void canCreateReadReplaceAndDelete()
@@ -107,6 +146,43 @@ public class Model1PersonCRUDControllerTest
         //@formatter:on
     }
 
+    @Test
+    @Order(3)
+    void canAnswerARepeatedReadFromMemory()
+            throws Exception
+    {
+        //@formatter:off
+        var proto = oracle.coreExemplar();
+
+        var created = spec.
+            when().
+                contentType(ContentType.JSON).
+                body(objMapper.writeValueAsString(proto)).
+                post(RESOURCE_ENDPOINT).
+            then().
+                statusCode(HttpStatus.CREATED.getCode()).
+                extract().as(ENTITY_CLASS);
+
+        // The first read loads the person and caches the response, the second is answered on the event loop
+
+        spec.
+            when().
+                get(RESOURCE_ENDPOINT + created.getId()).
+            then().
+                statusCode(HttpStatus.OK.getCode());
+
+        var inMemoryBefore = controller.getReadsInMemory();
+
+        spec.
+            when().
+                get(RESOURCE_ENDPOINT + created.getId()).
+            then().
+                statusCode(HttpStatus.OK.getCode());
+
+        assertEquals(inMemoryBefore + 1, controller.getReadsInMemory());
+        //@formatter:on
+    }
+
     @Test
     @Order(4)
     void canPatch() throws Exception
@@ -167,6 +243,434 @@ public class Model1PersonCRUDControllerTest
     }
 
 
+    @Test
+    @Order(5)
+    void canReplaceBehindWhenAskedToRespondAsync() throws Exception
+    {
+        //@formatter:off
+        var created = spec.
+            when().
+                contentType(ContentType.JSON).
+                body(objMapper.writeValueAsString(oracle.coreExemplar())).
+                post(RESOURCE_ENDPOINT).
+            then().
+                statusCode(HttpStatus.CREATED.getCode()).
+                extract().as(ENTITY_CLASS);
+
+        var replacement = modelMapper.patchEntity(oracle.coreExemplar(), created);
+        replacement.setFirstName("Behind");
+
+        spec.
+            when().
+                contentType(ContentType.JSON).
+                header("Prefer", "respond-async").
+                body(objMapper.writeValueAsString(replacement)).
+                put(RESOURCE_ENDPOINT + created.getId()).
+            then().
+                statusCode(HttpStatus.ACCEPTED.getCode()).
+                header("Preference-Applied", "respond-async");
+
+        // Written once the write-behind window closes
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> spec.
+            when().
+                get(RESOURCE_ENDPOINT + created.getId()).
+            then().
+                statusCode(HttpStatus.OK.getCode()).
+                extract().as(ENTITY_CLASS).getFirstName().equals("Behind"));
+        //@formatter:on
+    }
+
+
+    @Test
+    @Order(5)
+    void replacesBehindWhateverVersionIsInTheBody() throws Exception
+    {
+        //@formatter:off
+        var created = spec.
+            when().
+                contentType(ContentType.JSON).
+                body(objMapper.writeValueAsString(oracle.coreExemplar())).
+                post(RESOURCE_ENDPOINT).
+            then().
+                statusCode(HttpStatus.CREATED.getCode()).
+                extract().as(ENTITY_CLASS);
+
+        // A stale version in the body, which a PUT written straight away ignores too
+
+        var replacement = modelMapper.patchEntity(oracle.coreExemplar(), created);
+        replacement.setFirstName("Stale");
+        replacement.setVersion(created.getVersion() - 1);
+
+        spec.
+            when().
+                contentType(ContentType.JSON).
+                header("Prefer", "respond-async").
+                body(objMapper.writeValueAsString(replacement)).
+                put(RESOURCE_ENDPOINT + created.getId()).
+            then().
+                statusCode(HttpStatus.ACCEPTED.getCode());
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> spec.
+            when().
+                get(RESOURCE_ENDPOINT + created.getId()).
+            then().
+                statusCode(HttpStatus.OK.getCode()).
+                extract().as(ENTITY_CLASS).getFirstName().equals("Stale"));
+        //@formatter:on
+    }
+
+    @Test
+    @Order(6)
+    void canCreateInBulk() throws Exception
+    {
+        //@formatter:off
+        var first = oracle.coreExemplar();
+        var second = oracle.coreExemplar();
+        second.setFirstName("Olivia");
+
+        var results = spec.
+            when().
+                contentType(ContentType.JSON).
+                body(objMapper.writeValueAsString(List.of(first, second))).
+                post(RESOURCE_ENDPOINT + "bulk").
+            then().
+                statusCode(HttpStatus.OK.getCode()).
+                body("", hasSize(2)).
+                body("index", contains(0, 1)).
+                body("status", contains(HttpStatus.CREATED.getCode(), HttpStatus.CREATED.getCode())).
+                body("[0].resource.id", notNullValue()).
+                body("[1].resource.first_name", equalTo("Olivia")).
+                body("[0].errors", nullValue()).
+                extract().jsonPath();
+
+        // Each created person can be read back
+
+        spec.
+            when().
+                get(RESOURCE_ENDPOINT + results.getLong("[1].resource.id")).
+            then().
+                statusCode(HttpStatus.OK.getCode()).
+                body("first_name", equalTo("Olivia"));
+        //@formatter:on
+    }
+
+    @Test
+    @Order(6)
+    void groupsMoreConcurrentCreatesThanTheWriteLaneHasThreads()
+    {
+        var committer = service.getGroupCommitter();
+        var writeThreads = bulkhead.getWriteThreads();
+        var creates = 4 * writeThreads;
+
+        var groupsBefore = committer.getGroups();
+
+        // Every create is submitted before any of them commits. Were each create to hold a write lane thread while its
+        // group forms, no group could have more creates than the lane has threads.
+
+        var responses = Flux.merge(IntStream.range(0, creates).mapToObj(i -> controller.create(oracle.coreExemplar())).toList())
+                            .collectList()
+                            .block(Duration.ofSeconds(10));
+
+        assertEquals(creates, responses.size());
+        responses.forEach(response -> assertEquals(HttpStatus.CREATED, response.getStatus()));
+        assertTrue(committer.getGroups() - groupsBefore < creates / writeThreads,
+                "Committed " + creates + " creates in " + (committer.getGroups() - groupsBefore) + " groups");
+    }
+
+    @Test
+    @Order(7)
+    void createsTheValidItemsOfABulkRequestAndRejectsTheBadOne() throws Exception
+    {
+        //@formatter:off
+        var bad = oracle.coreExemplar();
+
+        //noinspection DataFlowIssue
+        bad.setAge(0);          // Set age to an invalid value
+
+        var results = spec.
+            when().
+                contentType(ContentType.JSON).
+                body(objMapper.writeValueAsString(List.of(oracle.coreExemplar(), bad, oracle.coreExemplar()))).
+                post(RESOURCE_ENDPOINT + "bulk").
+            then().
+                statusCode(HttpStatus.OK.getCode()).
+                body("", hasSize(3)).
+                body("index", contains(0, 1, 2)).
+                body("status", contains(HttpStatus.CREATED.getCode(), HttpStatus.BAD_REQUEST.getCode(), HttpStatus.CREATED.getCode())).
+                body("[1].resource", nullValue()).
+                body("[1].errors", hasSize(1)).
+                body("[1].errors[0]", startsWith("age")).
+                extract().jsonPath();
+
+        // The good items around the bad one were created
+
+        for (var index : List.of(0, 2))
+        {
+            spec.
+                when().
+                    get(RESOURCE_ENDPOINT + results.getLong("[" + index + "].resource.id")).
+                then().
+                    statusCode(HttpStatus.OK.getCode());
+        }
+        //@formatter:on
+    }
+
+    @Test
+    @Order(8)
+    void doesNotWriteAnUnchangedReplacement() throws Exception
+    {
+        //@formatter:off
+        var created = spec.
+            when().
+                contentType(ContentType.JSON).
+                body(objMapper.writeValueAsString(oracle.coreExemplar())).
+                post(RESOURCE_ENDPOINT).
+            then().
+                statusCode(HttpStatus.CREATED.getCode()).
+                extract().as(ENTITY_CLASS);
+
+        spec.
+            when().
+                contentType(ContentType.JSON).
+                body(objMapper.writeValueAsString(created)).
+                put(RESOURCE_ENDPOINT + created.getId()).
+            then().
+                statusCode(HttpStatus.OK.getCode()).
+                header(RestCrudEntityControllerFoundation.WRITE_APPLIED_HEADER, "false");
+
+        created.setFirstName("Changed");
+
+        spec.
+            when().
+                contentType(ContentType.JSON).
+                body(objMapper.writeValueAsString(created)).
+                put(RESOURCE_ENDPOINT + created.getId()).
+            then().
+                statusCode(HttpStatus.OK.getCode()).
+                header(RestCrudEntityControllerFoundation.WRITE_APPLIED_HEADER, "true");
+        //@formatter:on
+    }
+
+    @Test
+    @Order(9)
+    void doesNotWriteAnUnchangingPatch() throws Exception
+    {
+        //@formatter:off
+        var created = spec.
+            when().
+                contentType(ContentType.JSON).
+                body(objMapper.writeValueAsString(oracle.coreExemplar())).
+                post(RESOURCE_ENDPOINT).
+            then().
+                statusCode(HttpStatus.CREATED.getCode()).
+                extract().as(ENTITY_CLASS);
+
+        spec.
+            when().
+                contentType(ContentType.JSON).
+                body("{ \"first_name\" : \"" + created.getFirstName() + "\" }").
+                patch(RESOURCE_ENDPOINT + created.getId()).
+            then().
+                statusCode(HttpStatus.OK.getCode()).
+                header(RestCrudEntityControllerFoundation.WRITE_APPLIED_HEADER, "false");
+
+        spec.
+            when().
+                contentType(ContentType.JSON).
+                body("{ \"first_name\" : \"Changed\" }").
+                patch(RESOURCE_ENDPOINT + created.getId()).
+            then().
+                statusCode(HttpStatus.OK.getCode()).
+                header(RestCrudEntityControllerFoundation.WRITE_APPLIED_HEADER, "true").
+                body("first_name", equalTo("Changed"));
+        //@formatter:on
+    }
+
+    @Test
+    @Order(26)
+    void whenCreatingMoreThanTheBulkLimitReturnsBadRequest() throws Exception
+    {
+        //@formatter:off
+        var tooMany = Collections.nCopies(RestCrudEntityControllerFoundation.MAX_BULK_SIZE + 1, oracle.coreExemplar());
+
+        spec.
+            when().
+                contentType(ContentType.JSON).
+                body(objMapper.writeValueAsString(tooMany)).
+                post(RESOURCE_ENDPOINT + "bulk").
+            then().
+                statusCode(HttpStatus.BAD_REQUEST.getCode());
+        //@formatter:on
+    }
+
+    @Test
+    @Order(10)
+    void canExportEveryPersonAsNdjson() throws Exception
+    {
+        // More people than fit in one chunk, so the export has to read past the first one
+
+        createPeople(RestCrudEntityControllerFoundation.EXPORT_CHUNK_SIZE + 1);
+
+        //@formatter:off
+        var export = spec.
+            when().
+                get(RESOURCE_ENDPOINT + "export").
+            then().
+                statusCode(HttpStatus.OK.getCode()).
+                contentType(RestCrudEntityControllerFoundation.APPLICATION_NDJSON).
+                extract().asString();
+        //@formatter:on
+
+        var lines = export.split("\n");
+
+        assertTrue(lines.length > RestCrudEntityControllerFoundation.EXPORT_CHUNK_SIZE, "Exported " + lines.length + " people");
+
+        var jacksonMapper = new com.fasterxml.jackson.databind.ObjectMapper();
+        var previousId = Long.MIN_VALUE;
+
+        for (var line : lines)
+        {
+            var person = jacksonMapper.readTree(line);
+            var id = person.get("id").asLong();
+
+            assertTrue(id > previousId, "Ids are exported once each, in order");
+            assertTrue(person.get("created").isTextual(), "Dates are ISO-8601 strings");
+            assertNotNull(OffsetDateTime.parse(person.get("created").asText()));
+
+            previousId = id;
+        }
+    }
+
+    @Test
+    @Order(11)
+    void exportsNoMoreThanTheClientAsksForBeforeItGoesAway()
+    {
+        var received = new ArrayList<ByteBuffer<?>>();
+
+        StepVerifier.create(controller.export(), 3)
+                    .recordWith(() -> received)
+                    .expectNextCount(3)
+                    .thenCancel()
+                    .verify(Duration.ofSeconds(5));
+
+        assertEquals(3, received.size());
+        assertTrue(received.get(0).toString(StandardCharsets.UTF_8).endsWith("\n"));
+
+        // The lines handed out are the only buffers the export allocated, and are released once the client is done
+
+        for (var line : received)
+        {
+            assertTrue(((ReferenceCounted) line).release(), "Released with the last reference");
+        }
+    }
+
+    @Test
+    @Order(11)
+    void readsTheNextChunkOnlyOnceTheClientHasConsumedThePreviousOne() throws Exception
+    {
+        // Several chunks worth of people, so that reading ahead of the client would show
+
+        createPeople(3 * RestCrudEntityControllerFoundation.EXPORT_CHUNK_SIZE);
+
+        var readsBefore = controller.getReadsOffloaded();
+        var received = new ArrayList<ByteBuffer<?>>();
+
+        StepVerifier.create(controller.export(), 3)
+                    .recordWith(() -> received)
+                    .expectNextCount(3)
+                    .thenAwait(Duration.ofMillis(200))
+                    .thenCancel()
+                    .verify(Duration.ofSeconds(5));
+
+        received.forEach(line -> ((ReferenceCounted) line).release());
+
+        // The first chunk was read, and the read of the second one at most prepared
+
+        assertTrue(controller.getReadsOffloaded() - readsBefore <= 2, "Read " + (controller.getReadsOffloaded() - readsBefore) + " chunks");
+    }
+
+    @Test
+    @Order(12)
+    void canGetInBatchesLeavingOutMissingAndDuplicateIds() throws Exception
+    {
+        //@formatter:off
+        // More ids than fit in one query, so the batch has to be read in chunks
+
+        var ids = createPeople(CrudEntityServiceFoundation.ID_CHUNK_SIZE + 1);
+
+        var requested = new ArrayList<>(ids);
+        requested.add(ids.get(0));                      // Duplicate in the first chunk
+        requested.add(ids.get(ids.size() - 1));         // Duplicate in the last chunk
+        requested.add(-1L);                             // Missing
+
+        var found = spec.
+            when().
+                contentType(ContentType.JSON).
+                body(objMapper.writeValueAsString(requested)).
+                post(RESOURCE_ENDPOINT + "batch-get").
+            then().
+                statusCode(HttpStatus.OK.getCode()).
+                extract().jsonPath().getList("id", Long.class);
+        //@formatter:on
+
+        assertEquals(ids.size(), found.size(), "Each person is returned once");
+        assertEquals(new HashSet<>(ids), new HashSet<>(found));
+    }
+
+    @Test
+    @Order(13)
+    void canDeleteInBatchesIgnoringMissingAndDuplicateIds() throws Exception
+    {
+        //@formatter:off
+        var ids = createPeople(CrudEntityServiceFoundation.ID_CHUNK_SIZE + 1);
+        var kept = createPeople(1).get(0);
+
+        var requested = new ArrayList<>(ids);
+        requested.add(ids.get(0));                      // Duplicate
+        requested.add(-1L);                             // Missing
+
+        spec.
+            when().
+                contentType(ContentType.JSON).
+                body(objMapper.writeValueAsString(requested)).
+                post(RESOURCE_ENDPOINT + "batch-delete").
+            then().
+                statusCode(HttpStatus.OK.getCode());
+
+        var found = spec.
+            when().
+                contentType(ContentType.JSON).
+                body(objMapper.writeValueAsString(List.of(ids.get(0), ids.get(ids.size() - 1), kept))).
+                post(RESOURCE_ENDPOINT + "batch-get").
+            then().
+                statusCode(HttpStatus.OK.getCode()).
+                extract().jsonPath().getList("id", Long.class);
+        //@formatter:on
+
+        assertEquals(List.of(kept), found, "Only the person left out of the batch is still there");
+    }
+
+    @Test
+    @Order(28)
+    void whenGettingOrDeletingMoreThanTheBulkLimitReturnsBadRequest() throws Exception
+    {
+        //@formatter:off
+        var tooMany = objMapper.writeValueAsString(LongStream.rangeClosed(1, RestCrudEntityControllerFoundation.MAX_BULK_SIZE + 1).boxed().toList());
+
+        for (var endpoint : List.of("batch-get", "batch-delete"))
+        {
+            spec.
+                when().
+                    contentType(ContentType.JSON).
+                    body(tooMany).
+                    post(RESOURCE_ENDPOINT + endpoint).
+                then().
+                    statusCode(HttpStatus.BAD_REQUEST.getCode());
+        }
+        //@formatter:on
+    }
+
     @Test
     @Order(20)
     void whenCreatingResourceWithIncorrectInputReturnsValidProblemDetails()
@@ -239,4 +743,23 @@ public class Model1PersonCRUDControllerTest
         //@formatter:on
     }
 
+    /**
+     * Creates the given number of people in bulk
+     *
+     * @return their ids
+     */
+
+    private List<Long> createPeople(int count) throws Exception
+    {
+        //@formatter:off
+        return spec.
+            when().
+                contentType(ContentType.JSON).
+                body(objMapper.writeValueAsString(Collections.nCopies(count, oracle.coreExemplar()))).
+                post(RESOURCE_ENDPOINT + "bulk").
+            then().
+                statusCode(HttpStatus.OK.getCode()).
+                extract().jsonPath().getList("resource.id", Long.class);
+        //@formatter:on
+    }
 }
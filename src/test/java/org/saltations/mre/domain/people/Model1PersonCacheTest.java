@@ -0,0 +1,94 @@
+package org.saltations.mre.domain.people;
+
+import java.sql.Connection;
+import java.util.concurrent.CompletableFuture;
+
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import io.micronaut.transaction.TransactionOperations;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.saltations.mre.common.application.CannotUpdateEntity;
+import org.saltations.mre.domain.PersonEntity;
+import org.saltations.mre.fixtures.ReplaceBDDCamelCase;
+import org.saltations.mre.people.PersonCRUDService;
+import org.saltations.mre.people.PersonRepo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Confirms that the person service serves repeated reads from its cache, drops a cached person when it writes it, and
+ * never keeps a person cached as it was before a write committed
+ */
+
+@MicronautTest(transactional = false)
+@DisplayNameGeneration(ReplaceBDDCamelCase.class)
+class Model1PersonCacheTest
+{
+    @Inject
+    private PersonOracle oracle;
+
+    @Inject
+    private PersonRepo repo;
+
+    @Inject
+    private PersonCRUDService service;
+
+    @Inject
+    private TransactionOperations<Connection> transactions;
+
+    @Test
+    void servesARepeatedFindFromTheCache()
+    {
+        var created = service.create(oracle.coreExemplar()).get();
+        var cached = service.find(created.getId()).orElseThrow();
+
+        // Changed behind the back of the service
+
+        var changed = repo.findById(created.getId()).orElseThrow();
+        changed.setFirstName("Changed");
+        repo.update(changed);
+
+        assertEquals(cached.getFirstName(), service.find(created.getId()).orElseThrow().getFirstName());
+    }
+
+    @Test
+    void dropsACachedPersonWhenTheServiceUpdatesIt() throws CannotUpdateEntity
+    {
+        var created = service.create(oracle.coreExemplar()).get();
+        service.find(created.getId()).orElseThrow();
+
+        service.update(renamed(created.getId(), "Updated"));
+
+        assertEquals("Updated", service.find(created.getId()).orElseThrow().getFirstName());
+    }
+
+    @Test
+    void doesNotKeepAPersonReadBeforeAnUpdateCommitted()
+    {
+        var created = service.create(oracle.coreExemplar()).get();
+
+        transactions.executeWrite(status -> {
+            service.update(renamed(created.getId(), "Committed"));
+
+            // Another request reads, and caches, the person as it is before the update commits
+
+            var before = CompletableFuture.supplyAsync(() -> service.find(created.getId()).orElseThrow()).join();
+
+            assertEquals(created.getFirstName(), before.getFirstName());
+
+            return null;
+        });
+
+        assertEquals("Committed", service.find(created.getId()).orElseThrow().getFirstName());
+    }
+
+    private PersonEntity renamed(Long id, String firstName)
+    {
+        var person = repo.findById(id).orElseThrow();
+
+        person.setFirstName(firstName);
+
+        return person;
+    }
+}
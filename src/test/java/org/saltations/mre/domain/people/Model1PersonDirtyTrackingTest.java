@@ -0,0 +1,148 @@
+package org.saltations.mre.domain.people;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.temporal.ChronoUnit;
+
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import io.micronaut.transaction.TransactionOperations;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.saltations.mre.common.application.EntityVersionConflict;
+import org.saltations.mre.domain.PersonEntity;
+import org.saltations.mre.fixtures.ReplaceBDDCamelCase;
+import org.saltations.mre.people.PersonCRUDService;
+import org.saltations.mre.people.PersonRepo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Confirms that replacing and modifying a person only writes the columns that changed, bumps the date updated and the
+ * version when something is written, and only writes over the version that was read
+ */
+
+@MicronautTest(transactional = false)
+@DisplayNameGeneration(ReplaceBDDCamelCase.class)
+class Model1PersonDirtyTrackingTest
+{
+    @Inject
+    private PersonOracle oracle;
+
+    @Inject
+    private PersonRepo repo;
+
+    @Inject
+    private PersonCRUDService service;
+
+    @Inject
+    private TransactionOperations<Connection> transactions;
+
+    @Test
+    void writesOnlyTheChangedColumns() throws Exception
+    {
+        var created = service.create(oracle.coreExemplar()).get();
+
+        // The last name is changed in the database after the person is read. Writing every column would put it back.
+
+        service.modify(created.getId(), stored -> {
+            execute("UPDATE person SET last_name = 'Concurrent' WHERE id = " + created.getId());
+            stored.setFirstName("Changed");
+        }, null);
+
+        var written = repo.findById(created.getId()).orElseThrow();
+
+        assertEquals("Changed", written.getFirstName());
+        assertEquals("Concurrent", written.getLastName());
+    }
+
+    @Test
+    void bumpsTheDateUpdatedAndTheVersionOfAWrittenReplacement() throws Exception
+    {
+        var created = service.create(oracle.coreExemplar()).get();
+        var stored = repo.findById(created.getId()).orElseThrow();
+
+        var replacement = copyOf(stored);
+        replacement.setFirstName("Replaced");
+
+        var replaced = service.replace(created.getId(), replacement);
+
+        assertTrue(replaced.isWritten());
+        assertEquals(stored.getVersion() + 1, replaced.getEntity().getVersion());
+        assertTrue(replaced.getEntity().getUpdated().isAfter(stored.getUpdated()));
+        assertEquals(stored.getCreated().toInstant(), replaced.getEntity().getCreated().toInstant());
+
+        var written = repo.findById(created.getId()).orElseThrow();
+
+        assertEquals("Replaced", written.getFirstName());
+        assertEquals(replaced.getEntity().getVersion(), written.getVersion());
+        assertEquals(replaced.getEntity().getUpdated().truncatedTo(ChronoUnit.MILLIS).toInstant(), written.getUpdated().truncatedTo(ChronoUnit.MILLIS).toInstant());
+    }
+
+    @Test
+    void leavesTheDateUpdatedAndTheVersionOfAnUnchangedReplacement() throws Exception
+    {
+        var created = service.create(oracle.coreExemplar()).get();
+        var stored = repo.findById(created.getId()).orElseThrow();
+
+        var replaced = service.replace(created.getId(), copyOf(stored));
+
+        assertFalse(replaced.isWritten());
+
+        var unwritten = repo.findById(created.getId()).orElseThrow();
+
+        assertEquals(stored.getVersion(), unwritten.getVersion());
+        assertEquals(stored.getUpdated().toInstant(), unwritten.getUpdated().toInstant());
+    }
+
+    @Test
+    void doesNotWriteOverAVersionChangedAfterItWasRead()
+    {
+        var created = service.create(oracle.coreExemplar()).get();
+
+        // Someone else writes the person between the read and the write
+
+        assertThrows(EntityVersionConflict.class, () -> service.modify(created.getId(), stored -> {
+            execute("UPDATE person SET version = version + 1 WHERE id = " + created.getId());
+            stored.setFirstName("Lost");
+        }, null));
+
+        assertEquals(created.getFirstName(), repo.findById(created.getId()).orElseThrow().getFirstName());
+    }
+
+    @Test
+    void doesNotWriteOverAVersionOtherThanTheExpectedOne()
+    {
+        var created = service.create(oracle.coreExemplar()).get();
+        var replacement = copyOf(repo.findById(created.getId()).orElseThrow());
+        replacement.setFirstName("Lost");
+
+        assertThrows(EntityVersionConflict.class, () -> service.replace(created.getId(), replacement, replacement.getVersion() + 1));
+
+        assertEquals(created.getFirstName(), repo.findById(created.getId()).orElseThrow().getFirstName());
+    }
+
+    /**
+     * Runs the statement on the connection of the current transaction
+     */
+
+    private void execute(String sql)
+    {
+        try (var statement = transactions.getConnection().createStatement())
+        {
+            statement.executeUpdate(sql);
+        }
+        catch (SQLException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static PersonEntity copyOf(PersonEntity entity)
+    {
+        return entity.toBuilder().done();
+    }
+}
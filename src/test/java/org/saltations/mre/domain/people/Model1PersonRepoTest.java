@@ -1,7 +1,11 @@
 package org.saltations.mre.domain.people;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 import io.micronaut.data.runtime.criteria.RuntimeCriteriaBuilder;
 import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
@@ -125,4 +129,54 @@ class Model1PersonRepoTest
         assertEquals(0, repo.count(),"They should be gone");
     }
 
+
+    @Test
+    @Order(10)
+    void findsOnlyTheStoredEntitiesOfAnArrayOfIds()
+    {
+        var saved = repo.saveAll(mapper.createEntities(oracle.coreExemplars(1,3)));
+        var ids = saved.stream().map(e -> e.getId()).collect(Collectors.toList());
+
+        // Duplicates and missing ids bound as one array parameter
+
+        var requested = new ArrayList<>(ids);
+        requested.add(ids.get(0));
+        requested.add(-1L);
+
+        var retrieved = repo.findAllByIdIn(requested);
+
+        assertEquals(Set.copyOf(ids), retrieved.stream().map(e -> e.getId()).collect(Collectors.toSet()));
+        assertEquals(ids.size(), retrieved.size(), "Each entity is found once");
+        assertTrue(repo.findAllByIdIn(List.of()).isEmpty(), "An empty array finds nothing");
+    }
+
+    @Test
+    @Order(12)
+    void findsWithMoreIdsThanAStatementCanHaveParameters()
+    {
+        var saved = repo.save(mapper.createEntity(oracle.coreExemplar()));
+
+        // Far more than the 32767 bind parameters a Postgres statement can have
+
+        var requested = new ArrayList<>(LongStream.rangeClosed(-40_000, -1).boxed().toList());
+        requested.add(saved.getId());
+
+        var retrieved = repo.findAllByIdIn(requested);
+
+        assertEquals(1, retrieved.size());
+        assertEquals(saved.getId(), retrieved.get(0).getId());
+    }
+
+    @Test
+    @Order(14)
+    void deletesOnlyTheEntitiesOfAnArrayOfIds()
+    {
+        var saved = repo.saveAll(mapper.createEntities(oracle.coreExemplars(1,3)));
+        var kept = saved.get(2).getId();
+
+        repo.deleteByIdIn(List.of(saved.get(0).getId(), saved.get(1).getId(), saved.get(0).getId(), -1L));
+
+        assertEquals(1, repo.count(), "Only the entity left out of the array is kept");
+        assertTrue(repo.existsById(kept));
+    }
 }
@@ -1,5 +1,6 @@
 package org.saltations.mre.domain.places;
 
+import java.util.HashSet;
 import java.util.UUID;
 
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -20,7 +21,11 @@ import org.saltations.mre.domain.PlaceEntity;
 import org.saltations.mre.fixtures.ReplaceBDDCamelCase;
 
 import static io.restassured.module.jsv.JsonSchemaValidator.matchesJsonSchemaInClasspath;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @MicronautTest
 @DisplayNameGeneration(ReplaceBDDCamelCase.class)
@@ -170,6 +175,193 @@ public class Model1PlaceCRUDControllerTest
     }
 
 
+    @Test
+    @Order(6)
+    void canListInPages() throws Exception
+    {
+        //@formatter:off
+        // Create more than a page worth
+
+        for (int offset = 1; offset <= 3; offset++)
+        {
+            spec.
+                when().
+                    contentType(ContentType.JSON).
+                    body(objMapper.writeValueAsString(oracle.coreExemplar(offset))).
+                    post(RESOURCE_ENDPOINT).
+                then().
+                    statusCode(HttpStatus.CREATED.getCode());
+        }
+
+        // First page
+
+        var firstPage = spec.
+                when().
+                    contentType(ContentType.JSON).
+                    queryParam("limit", 2).
+                    get("/places").
+                then().
+                    statusCode(HttpStatus.OK.getCode()).
+                    header("Link", containsString("rel=\"next\"")).
+                    extract();
+
+        var firstIds = firstPage.jsonPath().getList("id", String.class);
+        assertEquals(2, firstIds.size(), "Page is limited");
+
+        // Next page
+
+        var link = firstPage.header("Link");
+        var next = link.substring(link.indexOf('<') + 1, link.indexOf('>'));
+
+        var nextIds = spec.
+                when().
+                    contentType(ContentType.JSON).
+                    get(next).
+                then().
+                    statusCode(HttpStatus.OK.getCode()).
+                    extract().jsonPath().getList("id", String.class);
+
+        assertTrue(!nextIds.isEmpty(), "Next page has content");
+
+        var allIds = new HashSet<>(firstIds);
+        nextIds.forEach(id -> assertTrue(allIds.add(id), "Pages do not overlap"));
+        //@formatter:on
+    }
+
+    @Test
+    @Order(8)
+    void canAnswerConditionalGetsWithNotModified() throws Exception
+    {
+        //@formatter:off
+        var created = spec.
+                when().
+                    contentType(ContentType.JSON).
+                    body(objMapper.writeValueAsString(oracle.coreExemplar())).
+                    post(RESOURCE_ENDPOINT).
+                then().
+                    statusCode(HttpStatus.CREATED.getCode()).
+                    extract().as(ENTITY_CLASS);
+
+        // Full response carries the validators
+
+        var retrieved = spec.
+                when().
+                    get(RESOURCE_ENDPOINT + created.getId()).
+                then().
+                    statusCode(HttpStatus.OK.getCode()).
+                    header("ETag", notNullValue()).
+                    header("Last-Modified", notNullValue()).
+                    extract();
+
+        var etag = retrieved.header("ETag");
+        var lastModified = retrieved.header("Last-Modified");
+
+        // Current copies are not sent again
+
+        spec.
+            when().
+                header("If-None-Match", etag).
+                get(RESOURCE_ENDPOINT + created.getId()).
+            then().
+                statusCode(HttpStatus.NOT_MODIFIED.getCode()).
+                header("ETag", etag);
+
+        spec.
+            when().
+                header("If-Modified-Since", lastModified).
+                get(RESOURCE_ENDPOINT + created.getId()).
+            then().
+                statusCode(HttpStatus.NOT_MODIFIED.getCode());
+
+        // Stale copies are
+
+        spec.
+            when().
+                header("If-None-Match", "\"stale\"").
+                get(RESOURCE_ENDPOINT + created.getId()).
+            then().
+                statusCode(HttpStatus.OK.getCode()).
+                header("ETag", etag);
+        //@formatter:on
+    }
+
+    @Test
+    @Order(9)
+    void canRejectReplacingAStaleVersion() throws Exception
+    {
+        //@formatter:off
+        var created = spec.
+                when().
+                    contentType(ContentType.JSON).
+                    body(objMapper.writeValueAsString(oracle.coreExemplar())).
+                    post(RESOURCE_ENDPOINT).
+                then().
+                    statusCode(HttpStatus.CREATED.getCode()).
+                    extract().as(ENTITY_CLASS);
+
+        var etag = spec.
+                when().
+                    get(RESOURCE_ENDPOINT + created.getId()).
+                then().
+                    statusCode(HttpStatus.OK.getCode()).
+                    extract().header("ETag");
+
+        // The first writer starting from the current version wins and moves the version on
+
+        var firstPayload = objMapper.writeValueAsString(modelMapper.patchEntity(oracle.refurbishCore(), created));
+
+        var replacedEtag = spec.
+                when().
+                    contentType(ContentType.JSON).
+                    header("If-Match", etag).
+                    body(firstPayload).
+                    put(RESOURCE_ENDPOINT + created.getId()).
+                then().
+                    statusCode(HttpStatus.OK.getCode()).
+                    extract().header("ETag");
+
+        assertNotNull(replacedEtag);
+        assertTrue(!etag.equals(replacedEtag), "Replacing should change the entity tag");
+
+        // The second writer starting from the same version is told its copy is stale
+
+        var secondPayload = objMapper.writeValueAsString(modelMapper.patchEntity(oracle.coreExemplar(), created));
+
+        spec.
+            when().
+                contentType(ContentType.JSON).
+                header("If-Match", etag).
+                body(secondPayload).
+                put(RESOURCE_ENDPOINT + created.getId()).
+            then().
+                statusCode(HttpStatus.PRECONDITION_FAILED.getCode());
+
+        spec.
+            when().
+                contentType("application/merge-patch+json").
+                header("If-Match", etag).
+                body("{ \"name\" : \"Stale\" }").
+                patch(RESOURCE_ENDPOINT + created.getId()).
+            then().
+                statusCode(HttpStatus.PRECONDITION_FAILED.getCode());
+        //@formatter:on
+    }
+
+    @Test
+    @Order(21)
+    void whenListingWithAnInvalidCursorReturnsProblemDetails()
+    {
+        //@formatter:off
+        spec.
+            when().
+                contentType(ContentType.JSON).
+                queryParam("cursor", "not-a-cursor").
+                get("/places").
+            then().
+                statusCode(HttpStatus.BAD_REQUEST.getCode());
+        //@formatter:on
+    }
+
     @Test
     @Order(20)
     void whenCreatingResourceWithIncorrectInputReturnsValidProblemDetails()
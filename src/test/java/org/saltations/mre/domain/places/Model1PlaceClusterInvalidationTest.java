@@ -0,0 +1,146 @@
+package org.saltations.mre.domain.places;
+
+import java.time.Duration;
+
+import io.micronaut.test.annotation.MockBean;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.saltations.mre.common.application.CannotDeleteEntity;
+import org.saltations.mre.common.application.CannotUpdateEntity;
+import org.saltations.mre.common.application.EntityInvalidationBus;
+import org.saltations.mre.common.infra.PostgresEntityInvalidationBus;
+import org.saltations.mre.domain.PlaceMapper;
+import org.saltations.mre.fixtures.LocalEntityInvalidationBus;
+import org.saltations.mre.fixtures.ReplaceBDDCamelCase;
+import org.saltations.mre.places.PlaceCRUDService;
+import org.saltations.mre.places.PlaceRepo;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Confirms that the place service publishes the ids of its writes, applies the ids published by other nodes to its
+ * cache and known id filter, and starts over after messages may have been missed. Other nodes are played through a
+ * {@link LocalEntityInvalidationBus} and by writing with the repository directly.
+ */
+
+@MicronautTest(transactional = false)
+@DisplayNameGeneration(ReplaceBDDCamelCase.class)
+class Model1PlaceClusterInvalidationTest
+{
+    private static final Duration SEEDED_WITHIN = Duration.ofSeconds(10);
+
+    private static final String PLACE = "PlaceEntity";
+
+    @Inject
+    private PlaceOracle oracle;
+
+    @Inject
+    private PlaceMapper mapper;
+
+    @Inject
+    private PlaceRepo repo;
+
+    @Inject
+    private PlaceCRUDService service;
+
+    @Inject
+    private EntityInvalidationBus bus;
+
+    @MockBean(PostgresEntityInvalidationBus.class)
+    EntityInvalidationBus localBus()
+    {
+        return new LocalEntityInvalidationBus();
+    }
+
+    @BeforeEach
+    void awaitSeeding()
+    {
+        await().atMost(SEEDED_WITHIN).until(() -> service.getKnownIdFilter().isSeeded());
+    }
+
+    @Test
+    void publishesTheIdOfEveryWrite() throws CannotUpdateEntity, CannotDeleteEntity
+    {
+        var created = service.create(oracle.coreExemplar()).get();
+        var message = PLACE + ":" + created.getId();
+
+        var renamed = repo.findById(created.getId()).orElseThrow();
+        renamed.setName("Renamed");
+
+        service.update(renamed);
+        service.delete(created.getId());
+
+        assertEquals(3, local().getPublished().stream().filter(message::equals).count(), "Create, update and delete should each publish");
+    }
+
+    @Test
+    void dropsACachedPlaceChangedByAnotherNode()
+    {
+        var created = service.create(oracle.coreExemplar()).get();
+        var cached = service.find(created.getId()).orElseThrow();
+
+        // Another node changes the place
+
+        var changed = repo.findById(created.getId()).orElseThrow();
+        changed.setName("Changed elsewhere");
+        repo.update(changed);
+
+        assertEquals(cached.getName(), service.find(created.getId()).orElseThrow().getName(), "Should still serve the cached place");
+
+        local().receive(PLACE, created.getId().toString());
+
+        assertEquals("Changed elsewhere", service.find(created.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    void findsAPlaceCreatedByAnotherNodeOnceItsIdArrives()
+    {
+        var saved = repo.save(mapper.createEntity(oracle.coreExemplar()));
+
+        local().receive(PLACE, saved.getId().toString());
+
+        assertFalse(service.isKnownMissing(saved.getId()));
+        assertTrue(service.find(saved.getId()).isPresent());
+    }
+
+    @Test
+    void startsOverAfterAReconnect()
+    {
+        var created = service.create(oracle.coreExemplar()).get();
+        service.find(created.getId()).orElseThrow();
+
+        // Messages for a change and an insert by another node are lost
+
+        var changed = repo.findById(created.getId()).orElseThrow();
+        changed.setName("Changed while away");
+        repo.update(changed);
+
+        var missed = repo.save(mapper.createEntity(oracle.coreExemplar()));
+        var before = service.getKnownIdFilter();
+
+        local().reconnect();
+
+        var after = service.getKnownIdFilter();
+
+        assertNotSame(before, after, "Should have replaced the filter");
+        assertFalse(service.isKnownMissing(missed.getId()), "An unseeded filter should not answer");
+        assertEquals("Changed while away", service.find(created.getId()).orElseThrow().getName(), "Should have dropped the cache");
+
+        await().atMost(SEEDED_WITHIN).until(after::isSeeded);
+
+        assertFalse(service.isKnownMissing(missed.getId()), "The reseeded filter should hold the missed id");
+        assertTrue(service.find(missed.getId()).isPresent());
+    }
+
+    private LocalEntityInvalidationBus local()
+    {
+        return (LocalEntityInvalidationBus) bus;
+    }
+}
@@ -0,0 +1,86 @@
+package org.saltations.mre.domain.places;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.saltations.mre.domain.PlaceMapper;
+import org.saltations.mre.fixtures.ReplaceBDDCamelCase;
+import org.saltations.mre.places.PlaceCRUDService;
+import org.saltations.mre.places.PlaceRepo;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Confirms that the known id filter of the place service learns about places inserted without going through the
+ * service, and that it never answers a lookup of an existing place with a not found, not even before the announcement
+ * of its insert has arrived
+ */
+
+@MicronautTest(transactional = false)
+@DisplayNameGeneration(ReplaceBDDCamelCase.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class Model1PlaceKnownIdTest
+{
+    private static final Duration NOTIFIED_WITHIN = Duration.ofSeconds(10);
+
+    @Inject
+    private PlaceOracle oracle;
+
+    @Inject
+    private PlaceMapper mapper;
+
+    @Inject
+    private PlaceRepo repo;
+
+    @Inject
+    private PlaceCRUDService service;
+
+    @BeforeAll
+    void awaitSeeding()
+    {
+        await().atMost(NOTIFIED_WITHIN).until(() -> service.getKnownIdFilter().isSeeded());
+    }
+
+    @Test
+    void findsAPlaceInsertedOutsideTheServiceStraightAway()
+    {
+        var saved = repo.save(mapper.createEntity(oracle.coreExemplar()));
+
+        // Read straight after the insert commits, as a read on another node would be
+
+        assertTrue(service.find(saved.getId()).isPresent());
+        assertTrue(service.exists(saved.getId()));
+        assertTrue(service.getKnownIdFilter().mightContain(saved.getId()), "Learned from the confirmation");
+    }
+
+    @Test
+    void findsEveryPlaceOfABulkInsertOutsideTheService()
+    {
+        var saved = repo.saveAll(mapper.createEntities(oracle.coreExemplars(1, 400)));
+
+        await().atMost(NOTIFIED_WITHIN).until(() -> saved.stream().allMatch(place -> service.getKnownIdFilter().mightContain(place.getId())));
+
+        saved.forEach(place -> assertTrue(service.find(place.getId()).isPresent(), "Should find " + place.getId()));
+    }
+
+    @Test
+    void stillKnowsMissingPlacesButConfirmsThemAgainstTheDatabase()
+    {
+        // Any one of them can be a false positive of the filter, all of them only with a negligible chance
+
+        assertTrue(Stream.generate(UUID::randomUUID).limit(10).anyMatch(id -> !service.getKnownIdFilter().mightContain(id)));
+
+        // Confirmed negatives are not answered from memory on the event loop
+
+        assertTrue(Stream.generate(UUID::randomUUID).limit(10).noneMatch(service::isKnownMissing));
+        assertTrue(service.find(UUID.randomUUID()).isEmpty());
+    }
+}
@@ -1,7 +1,12 @@
 package org.saltations.mre.domain.places;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
 import jakarta.inject.Inject;
@@ -120,4 +125,54 @@ class Model1PlaceRepoTest
         repo.deleteByIdIn(ids);
         assertEquals(0, repo.count(),"They should be gone");
     }
+
+    @Test
+    @Order(10)
+    void findsOnlyTheStoredEntitiesOfAnArrayOfIds()
+    {
+        var saved = repo.saveAll(mapper.createEntities(oracle.coreExemplars(1,3)));
+        var ids = saved.stream().map(e -> e.getId()).collect(Collectors.toList());
+
+        // Duplicates and missing ids bound as one array parameter
+
+        var requested = new ArrayList<>(ids);
+        requested.add(ids.get(0));
+        requested.add(UUID.randomUUID());
+
+        var retrieved = repo.findAllByIdIn(requested);
+
+        assertEquals(Set.copyOf(ids), retrieved.stream().map(e -> e.getId()).collect(Collectors.toSet()));
+        assertEquals(ids.size(), retrieved.size(), "Each entity is found once");
+        assertTrue(repo.findAllByIdIn(List.of()).isEmpty(), "An empty array finds nothing");
+    }
+
+    @Test
+    @Order(12)
+    void findsWithMoreIdsThanAStatementCanHaveParameters()
+    {
+        var saved = repo.save(mapper.createEntity(oracle.coreExemplar()));
+
+        // Far more than the 32767 bind parameters a Postgres statement can have
+
+        var requested = new ArrayList<>(Stream.generate(UUID::randomUUID).limit(40_000).toList());
+        requested.add(saved.getId());
+
+        var retrieved = repo.findAllByIdIn(requested);
+
+        assertEquals(1, retrieved.size());
+        assertEquals(saved.getId(), retrieved.get(0).getId());
+    }
+
+    @Test
+    @Order(14)
+    void deletesOnlyTheEntitiesOfAnArrayOfIds()
+    {
+        var saved = repo.saveAll(mapper.createEntities(oracle.coreExemplars(1,3)));
+        var kept = saved.get(2).getId();
+
+        repo.deleteByIdIn(List.of(saved.get(0).getId(), saved.get(1).getId(), saved.get(0).getId(), UUID.randomUUID()));
+
+        assertEquals(1, repo.count(), "Only the entity left out of the array is kept");
+        assertTrue(repo.existsById(kept));
+    }
 }
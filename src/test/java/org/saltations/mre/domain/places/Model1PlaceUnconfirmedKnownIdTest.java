@@ -0,0 +1,65 @@
+package org.saltations.mre.domain.places;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import io.micronaut.context.annotation.Property;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.saltations.mre.domain.PlaceMapper;
+import org.saltations.mre.fixtures.ReplaceBDDCamelCase;
+import org.saltations.mre.places.PlaceCRUDService;
+import org.saltations.mre.places.PlaceRepo;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Confirms that, with confirmation of negatives off, the known id filter of the place service answers missing places
+ * from memory and learns about places inserted without going through the service once their insert is announced
+ */
+
+@MicronautTest(transactional = false)
+@Property(name = "id-filters.places.confirm-negatives", value = "false")
+@DisplayNameGeneration(ReplaceBDDCamelCase.class)
+class Model1PlaceUnconfirmedKnownIdTest
+{
+    private static final Duration NOTIFIED_WITHIN = Duration.ofSeconds(10);
+
+    @Inject
+    private PlaceOracle oracle;
+
+    @Inject
+    private PlaceMapper mapper;
+
+    @Inject
+    private PlaceRepo repo;
+
+    @Inject
+    private PlaceCRUDService service;
+
+    @Test
+    void answersMissingPlacesWithoutTheDatabase()
+    {
+        await().atMost(NOTIFIED_WITHIN).until(() -> service.getKnownIdFilter().isSeeded());
+
+        // Any one of them can be a false positive of the filter, all of them only with a negligible chance
+
+        assertTrue(Stream.generate(UUID::randomUUID).limit(10).anyMatch(service::isKnownMissing));
+    }
+
+    @Test
+    void findsAPlaceInsertedOutsideTheServiceOnceItsInsertIsAnnounced()
+    {
+        await().atMost(NOTIFIED_WITHIN).until(() -> service.getKnownIdFilter().isSeeded());
+
+        var saved = repo.save(mapper.createEntity(oracle.coreExemplar()));
+
+        await().atMost(NOTIFIED_WITHIN).until(() -> service.find(saved.getId()).isPresent());
+
+        assertTrue(service.exists(saved.getId()));
+    }
+}
@@ -0,0 +1,76 @@
+package org.saltations.mre.fixtures;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import io.micronaut.core.annotation.NonNull;
+import org.saltations.mre.common.application.EntityInvalidationBus;
+
+/**
+ * {@link EntityInvalidationBus} that stays inside the JVM, so that tests can play the other nodes of a cluster.
+ * <p>
+ * Publishing records the identifiers and delivers them straight back, as the real bus does once the transaction
+ * commits. Subscribers are told that messages may have been missed as soon as they subscribe, as the real bus does once
+ * it is listening.
+ */
+
+public class LocalEntityInvalidationBus implements EntityInvalidationBus
+{
+    private final Map<String, List<Subscriber>> subscribersByEntityName = new ConcurrentHashMap<>();
+
+    private final List<String> published = new CopyOnWriteArrayList<>();
+
+    private record Subscriber(Consumer<String> onInvalidation, Runnable onMissedInvalidations)
+    {
+    }
+
+    @Override
+    public void publish(@NonNull String entityName, @NonNull Collection<?> ids)
+    {
+        ids.forEach(id -> {
+            published.add(entityName + ":" + id);
+            receive(entityName, id.toString());
+        });
+    }
+
+    @Override
+    public void subscribe(@NonNull String entityName, @NonNull Consumer<String> onInvalidation, @NonNull Runnable onMissedInvalidations)
+    {
+        subscribersByEntityName.computeIfAbsent(entityName, name -> new CopyOnWriteArrayList<>())
+                .add(new Subscriber(onInvalidation, onMissedInvalidations));
+
+        onMissedInvalidations.run();
+    }
+
+    /**
+     * Delivers a message as if another node had published it
+     */
+
+    public void receive(String entityName, String idText)
+    {
+        subscribersByEntityName.getOrDefault(entityName, List.of()).forEach(subscriber -> subscriber.onInvalidation().accept(idText));
+    }
+
+    /**
+     * Tells every subscriber that messages may have been missed, as the real bus does after a reconnect
+     */
+
+    public void reconnect()
+    {
+        subscribersByEntityName.values().forEach(subscribers -> subscribers.forEach(subscriber -> subscriber.onMissedInvalidations().run()));
+    }
+
+    /**
+     * @return every published message as {@code <entity name>:<id>}, oldest first
+     */
+
+    public List<String> getPublished()
+    {
+        return new ArrayList<>(published);
+    }
+}
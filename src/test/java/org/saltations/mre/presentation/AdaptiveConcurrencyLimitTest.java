@@ -0,0 +1,102 @@
+package org.saltations.mre.presentation;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.saltations.mre.common.presentation.AdaptiveConcurrencyLimit;
+import org.saltations.mre.fixtures.ReplaceBDDCamelCase;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Confirms that the limit rejects requests over it, grows while latency holds and shrinks when latency rises
+ */
+
+@DisplayNameGeneration(ReplaceBDDCamelCase.class)
+class AdaptiveConcurrencyLimitTest
+{
+    private static final long FAST = 2_000_000;
+
+    @Test
+    void rejectsRequestsOverTheLimit()
+    {
+        var limit = new AdaptiveConcurrencyLimit(2, 1, 10, 0.2);
+
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        assertEquals(1, limit.getRejected());
+
+        limit.release(FAST, true);
+
+        assertTrue(limit.tryAcquire());
+    }
+
+    @Test
+    void growsWhileLatencyHoldsAndTheLimitIsUsed()
+    {
+        var limit = new AdaptiveConcurrencyLimit(10, 1, 100, 0.2);
+
+        for (int i = 0; i < 200; i++)
+        {
+            saturate(limit, FAST);
+        }
+
+        assertEquals(100, limit.getLimit());
+    }
+
+    @Test
+    void doesNotGrowWhileMostOfTheLimitIsUnused()
+    {
+        var limit = new AdaptiveConcurrencyLimit(10, 1, 100, 0.2);
+
+        for (int i = 0; i < 200; i++)
+        {
+            limit.tryAcquire();
+            limit.release(FAST, true);
+        }
+
+        assertEquals(10, limit.getLimit());
+    }
+
+    @Test
+    void shrinksWhenLatencyRises()
+    {
+        var limit = new AdaptiveConcurrencyLimit(50, 4, 100, 0.2);
+
+        for (int i = 0; i < 50; i++)
+        {
+            saturate(limit, FAST);
+        }
+
+        var before = limit.getLimit();
+
+        for (int i = 0; i < 20; i++)
+        {
+            saturate(limit, FAST * 10);
+        }
+
+        assertTrue(limit.getLimit() < before, "Limit should have shrunk from " + before);
+        assertTrue(limit.getLimit() >= 4);
+    }
+
+    /**
+     * Fills the limit and then releases every request with the given latency
+     */
+
+    private static void saturate(AdaptiveConcurrencyLimit limit, long latencyNanos)
+    {
+        var acquired = 0;
+
+        while (limit.tryAcquire())
+        {
+            acquired++;
+        }
+
+        for (int i = 0; i < acquired; i++)
+        {
+            limit.release(latencyNanos, true);
+        }
+    }
+}
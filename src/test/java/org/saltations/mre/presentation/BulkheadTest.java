@@ -0,0 +1,106 @@
+package org.saltations.mre.presentation;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.saltations.mre.common.presentation.Bulkhead;
+import org.saltations.mre.common.presentation.BulkheadConfiguration;
+import org.saltations.mre.common.presentation.CrudExecutorFactory.ExecutionMode;
+import org.saltations.mre.fixtures.ReplaceBDDCamelCase;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Confirms that a saturated write lane neither slows the read lane nor queues without bound, whether the lanes run on
+ * platform or virtual threads
+ */
+
+@DisplayNameGeneration(ReplaceBDDCamelCase.class)
+class BulkheadTest
+{
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private Bulkhead bulkhead;
+
+    @AfterEach
+    void shutdown()
+    {
+        release.countDown();
+        bulkhead.shutdown();
+    }
+
+    @ParameterizedTest
+    @EnumSource(ExecutionMode.class)
+    void readsGoAheadWhileTheWriteLaneIsSaturated(ExecutionMode execution) throws Exception
+    {
+        bulkhead = new Bulkhead(configuration(1, 1, 1), execution);
+
+        saturate(bulkhead);
+
+        var read = bulkhead.getReads().submit(() -> "read");
+
+        assertEquals("read", read.get(1, TimeUnit.SECONDS));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ExecutionMode.class)
+    void rejectsWorkPastTheQueueOfAFullLane(ExecutionMode execution) throws Exception
+    {
+        bulkhead = new Bulkhead(configuration(1, 1, 1), execution);
+
+        saturate(bulkhead);
+
+        assertThrows(RejectedExecutionException.class, () -> bulkhead.getWrites().submit(() -> "write"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ExecutionMode.class)
+    void reportsTheRunningAndWaitingWorkOfALane(ExecutionMode execution) throws Exception
+    {
+        bulkhead = new Bulkhead(configuration(1, 1, 1), execution);
+
+        saturate(bulkhead);
+
+        var statistics = Bulkhead.statisticsOf(bulkhead.getWrites());
+
+        assertEquals(1, statistics.get("threads").intValue());
+        assertEquals(1, statistics.get("active").intValue());
+        assertEquals(1, statistics.get("queued").intValue());
+    }
+
+    /**
+     * Blocks the only write thread and fills the write queue
+     */
+
+    private void saturate(Bulkhead bulkhead) throws InterruptedException
+    {
+        var started = new CountDownLatch(1);
+
+        bulkhead.getWrites().submit(() -> {
+            started.countDown();
+            release.await();
+            return null;
+        });
+
+        started.await();
+
+        bulkhead.getWrites().submit(() -> null);
+    }
+
+    private static BulkheadConfiguration configuration(int readThreads, int writeThreads, int queueSize)
+    {
+        var configuration = new BulkheadConfiguration("people");
+
+        configuration.setReadThreads(readThreads);
+        configuration.setWriteThreads(writeThreads);
+        configuration.setQueueSize(queueSize);
+
+        return configuration;
+    }
+}
@@ -0,0 +1,218 @@
+package org.saltations.mre.presentation;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import io.micronaut.core.io.buffer.ReferenceCounted;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.ResourceLeakDetector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.saltations.mre.common.presentation.EncodedResponseCache;
+import org.saltations.mre.common.presentation.EncodedResponseCache.Encoded;
+import org.saltations.mre.common.presentation.EntityValidators;
+import org.saltations.mre.fixtures.ReplaceBDDCamelCase;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Confirms that the cache hands out retained slices of its off heap buffers and releases each buffer exactly once, when
+ * it is evicted, replaced or invalidated. Runs with Netty leak detection at its most thorough.
+ */
+
+@DisplayNameGeneration(ReplaceBDDCamelCase.class)
+class EncodedResponseCacheTest
+{
+    private static final EntityValidators VALIDATORS = new EntityValidators("\"1\"", null);
+
+    private static ResourceLeakDetector.Level leakDetection;
+
+    @BeforeAll
+    static void detectLeaksParanoidly()
+    {
+        leakDetection = ResourceLeakDetector.getLevel();
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.PARANOID);
+    }
+
+    @AfterAll
+    static void restoreLeakDetection()
+    {
+        ResourceLeakDetector.setLevel(leakDetection);
+    }
+
+    @Test
+    void aHitReturnsARetainedSliceOfTheCachedBuffer()
+    {
+        var cache = new EncodedResponseCache<Long>(1024);
+
+        release(cache.store(1L, json(1, 10), VALIDATORS, cache.getGeneration()));
+
+        var hit = cache.find(1L);
+
+        assertNotNull(hit);
+        assertEquals(VALIDATORS, hit.validators());
+        assertEquals(new String(json(1, 10), StandardCharsets.UTF_8), hit.body().toString(StandardCharsets.UTF_8));
+        assertEquals(2, refCnt(hit), "Held by the cache and by the hit");
+
+        release(hit);
+
+        assertEquals(1, refCnt(hit), "Only the cache holds it once the hit is released");
+        assertEquals(1, cache.getHitCount());
+
+        cache.invalidatedAll();
+
+        assertEquals(0, refCnt(hit));
+    }
+
+    @Test
+    void releasesTheBufferOfAnInvalidatedEntryOnce()
+    {
+        var cache = new EncodedResponseCache<Long>(1024);
+
+        var stored = cache.store(1L, json(1, 10), VALIDATORS, cache.getGeneration());
+
+        cache.invalidated(1L);
+        cache.invalidated(1L);
+
+        assertNull(cache.find(1L));
+        assertEquals(1, refCnt(stored), "Released once by the cache, still held by the caller");
+
+        release(stored);
+
+        assertEquals(0, refCnt(stored));
+    }
+
+    @Test
+    void releasesTheBufferOfAReplacedEntryOnce()
+    {
+        var cache = new EncodedResponseCache<Long>(1024);
+
+        var first = cache.store(1L, json(1, 10), VALIDATORS, cache.getGeneration());
+        var second = cache.store(1L, json(2, 10), VALIDATORS, cache.getGeneration());
+
+        assertEquals(1, refCnt(first), "Released once by the cache, still held by the caller");
+        assertEquals(2, refCnt(second));
+
+        release(first);
+        release(second);
+
+        assertEquals(0, refCnt(first));
+
+        cache.invalidatedAll();
+
+        assertEquals(0, refCnt(second));
+    }
+
+    @Test
+    void releasesTheBuffersOfEvictedEntriesOnce()
+    {
+        var cache = new EncodedResponseCache<Long>(100);
+        var stored = new ArrayList<Encoded>();
+
+        for (long id = 0; id < 10; id++)
+        {
+            stored.add(cache.store(id, json(id, 40), VALIDATORS, cache.getGeneration()));
+        }
+
+        assertTrue(cache.getTotalBytes() <= 100);
+        assertTrue(cache.getEvictionCount() >= 8);
+
+        // Every buffer is held by its caller, and by the cache only if it was not evicted
+
+        var evicted = stored.stream().filter(encoded -> refCnt(encoded) == 1).count();
+        var cached = stored.stream().filter(encoded -> refCnt(encoded) == 2).count();
+
+        assertEquals(cache.getEvictionCount(), evicted);
+        assertEquals(cache.getSize(), cached);
+        assertEquals(stored.size(), evicted + cached);
+
+        stored.forEach(EncodedResponseCacheTest::release);
+        cache.invalidatedAll();
+
+        stored.forEach(encoded -> assertEquals(0, refCnt(encoded)));
+    }
+
+    @Test
+    void doesNotCacheAResponseLargerThanTheCache()
+    {
+        var cache = new EncodedResponseCache<Long>(100);
+
+        var stored = cache.store(1L, json(1, 101), VALIDATORS, cache.getGeneration());
+
+        assertEquals(1, refCnt(stored), "Held by the caller only");
+        assertNull(cache.find(1L));
+        assertEquals(0, cache.getSize());
+        assertEquals(0, cache.getTotalBytes());
+
+        release(stored);
+
+        assertEquals(0, refCnt(stored));
+    }
+
+    @Test
+    void doesNotCacheAResponseReadBeforeAnInvalidation()
+    {
+        var cache = new EncodedResponseCache<Long>(1024);
+
+        var generation = cache.getGeneration();
+
+        cache.invalidated(1L);
+
+        var stored = cache.store(1L, json(1, 10), VALIDATORS, generation);
+
+        assertNull(cache.find(1L));
+
+        release(stored);
+
+        assertEquals(0, refCnt(stored));
+    }
+
+    @Test
+    void releasesEveryBufferWhenEverythingIsInvalidated()
+    {
+        var cache = new EncodedResponseCache<Long>(1024);
+        var stored = new ArrayList<Encoded>();
+
+        for (long id = 0; id < 5; id++)
+        {
+            stored.add(cache.store(id, json(id, 10), VALIDATORS, cache.getGeneration()));
+        }
+
+        cache.invalidatedAll();
+
+        assertEquals(0, cache.getSize());
+        assertEquals(0, cache.getTotalBytes());
+        stored.forEach(encoded -> assertEquals(1, refCnt(encoded), "Released once by the cache, still held by the caller"));
+
+        stored.forEach(EncodedResponseCacheTest::release);
+
+        stored.forEach(encoded -> assertEquals(0, refCnt(encoded)));
+    }
+
+    /**
+     * @return JSON of exactly the given length
+     */
+
+    private static byte[] json(long id, int length)
+    {
+        var prefix = "{\"id\":" + id + ",\"name\":\"";
+        var suffix = "\"}";
+
+        return (prefix + "x".repeat(length - prefix.length() - suffix.length()) + suffix).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int refCnt(Encoded encoded)
+    {
+        return ((ByteBuf) encoded.body().asNativeBuffer()).refCnt();
+    }
+
+    private static void release(Encoded encoded)
+    {
+        ((ReferenceCounted) encoded.body()).release();
+    }
+}
@@ -0,0 +1,147 @@
+package org.saltations.mre.presentation;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.fge.jsonpatch.mergepatch.JsonMergePatch;
+import io.micronaut.core.beans.BeanIntrospection;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.saltations.mre.common.presentation.EntityMergePatcher;
+import org.saltations.mre.domain.PersonEntity;
+import org.saltations.mre.domain.PlaceEntity;
+import org.saltations.mre.domain.USState;
+import org.saltations.mre.fixtures.ReplaceBDDCamelCase;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Confirms that the introspection based merge patch gives the same results as the serialize/patch/deserialize round trip
+ */
+
+@DisplayNameGeneration(ReplaceBDDCamelCase.class)
+class EntityMergePatcherTest
+{
+    private static final OffsetDateTime CREATED = OffsetDateTime.of(2024, 1, 2, 3, 4, 5, 0, ZoneOffset.UTC);
+
+    private final ObjectMapper jsonMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private final EntityMergePatcher<PersonEntity> personPatcher = new EntityMergePatcher<>(PersonEntity.class, jsonMapper);
+
+    private final EntityMergePatcher<PlaceEntity> placePatcher = new EntityMergePatcher<>(PlaceEntity.class, jsonMapper);
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{}",
+            "{ \"first_name\" : \"Srinivas\", \"last_name\" : null }",
+            "{ \"age\" : 44, \"email_address\" : \"sri@agiga.com\" }",
+            "{ \"age\" : null, \"first_name\" : null, \"last_name\" : null, \"email_address\" : null }"
+    })
+    void patchesPersonTheSameAsTheRoundTrip(String patch) throws Exception
+    {
+        var expected = roundTrip(person(), patch, PersonEntity.class);
+        var actual = personPatcher.apply(jsonMapper.readTree(patch), person());
+
+        hasSameProperties(PersonEntity.class, expected, actual);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{ \"name\" : \"Town Hall\", \"street2\" : null }",
+            "{ \"state\" : \"NH\", \"city\" : \"Nashua\" }",
+            "{ \"street1\" : \"2 Mass Ave\", \"street2\" : \"Suite 2\" }"
+    })
+    void patchesPlaceTheSameAsTheRoundTrip(String patch) throws Exception
+    {
+        var expected = roundTrip(place(), patch, PlaceEntity.class);
+        var actual = placePatcher.apply(jsonMapper.readTree(patch), place());
+
+        hasSameProperties(PlaceEntity.class, expected, actual);
+    }
+
+    @Test
+    void patchesTheTargetInPlace() throws Exception
+    {
+        var target = person();
+        var patched = personPatcher.apply(jsonMapper.readTree("{ \"last_name\" : null }"), target);
+
+        assertSame(target, patched);
+        assertNull(target.getLastName());
+    }
+
+    @Test
+    void leavesThePropertiesThePersistenceLayerManagesAlone() throws Exception
+    {
+        var patch = "{ \"id\" : 8, \"created\" : \"2024-02-03T04:05:06Z\", \"updated\" : \"2024-02-03T04:05:06Z\", \"version\" : 99, \"first_name\" : \"Mark\" }";
+
+        var patched = personPatcher.apply(jsonMapper.readTree(patch), person());
+
+        assertEquals(7L, patched.getId());
+        assertEquals(CREATED, patched.getCreated());
+        assertEquals(CREATED, patched.getUpdated());
+        assertEquals(3L, patched.getVersion());
+        assertEquals("Mark", patched.getFirstName(), "Still patches the rest");
+    }
+
+    @Test
+    void rejectsUnknownProperties()
+    {
+        assertThrows(IllegalArgumentException.class, () -> personPatcher.apply(jsonMapper.readTree("{ \"nickname\" : \"Sam\" }"), person()));
+    }
+
+    @Test
+    void rejectsPatchesThatAreNotObjects()
+    {
+        assertThrows(IllegalArgumentException.class, () -> personPatcher.apply(jsonMapper.readTree("[ 1, 2 ]"), person()));
+    }
+
+    private <E> E roundTrip(E entity, String patch, Class<E> entityClass) throws Exception
+    {
+        var mergePatch = jsonMapper.readValue(patch, JsonMergePatch.class);
+        var entityAsJsonNode = jsonMapper.readTree(jsonMapper.writeValueAsString(entity));
+
+        return jsonMapper.readValue(jsonMapper.writeValueAsString(mergePatch.apply(entityAsJsonNode)), entityClass);
+    }
+
+    private <E> void hasSameProperties(Class<E> entityClass, E expected, E actual)
+    {
+        BeanIntrospection.getIntrospection(entityClass).getBeanProperties()
+                .forEach(property -> assertEquals(property.get(expected), property.get(actual), property.getName()));
+    }
+
+    private static PersonEntity person()
+    {
+        return PersonEntity.of()
+                .id(7L)
+                .age(14)
+                .firstName("Samuel")
+                .lastName("Clemens")
+                .emailAddress("shmoil@agiga.com")
+                .created(CREATED)
+                .updated(CREATED)
+                .version(3L)
+                .done();
+    }
+
+    private static PlaceEntity place()
+    {
+        return PlaceEntity.of()
+                .id(new UUID(11111L, 22222L))
+                .name("City Hall")
+                .street1("1 Mass Ave")
+                .street2("Suite 1")
+                .city("Boston")
+                .state(USState.MA)
+                .created(CREATED)
+                .updated(CREATED)
+                .done();
+    }
+}